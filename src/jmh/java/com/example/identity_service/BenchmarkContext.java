@@ -0,0 +1,56 @@
+package com.example.identity_service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.cache.RoleScopeCache;
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.PermissionRepository;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+
+// Khoi dong app that tren H2 (profile test) cho cac benchmark can bean da cau hinh san:
+// AuthenticationService, CustomJwtDecoder, RoleScopeCache... Moi trial dung 1 database rieng
+public final class BenchmarkContext {
+    private BenchmarkContext() {}
+
+    public static ConfigurableApplicationContext start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark_" + UUID.randomUUID()
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--password.encoder.strength=10", // Bo qua buoc do cost BCrypt luc khoi dong
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(IdentityServiceApplication.class)
+                .profiles("test")
+                .run(arguments.toArray(String[]::new));
+    }
+
+    // User admin mac dinh khong co role, gan 1 role co `permissions` permission de token co scope giong that
+    public static void grantAdminRole(ConfigurableApplicationContext context, int permissions) {
+        Set<Permission> granted = new HashSet<>();
+        for (int i = 0; i < permissions; i++)
+            granted.add(Permission.builder().name("BENCH_PERMISSION_" + i).build());
+        context.getBean(PermissionRepository.class).saveAll(granted);
+        context.getBean(RoleRepository.class)
+                .save(Role.builder().name("BENCH_ADMIN").permissions(granted).build());
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        String adminId = userRepository.findByUsername("admin").orElseThrow().getId();
+        context.getBean(TransactionTemplate.class)
+                .executeWithoutResult(status -> userRepository.grantRole("BENCH_ADMIN", List.of(adminId)));
+
+        context.getBean(CredentialCache.class).invalidateAll();
+        context.getBean(RoleScopeCache.class).invalidate();
+    }
+}
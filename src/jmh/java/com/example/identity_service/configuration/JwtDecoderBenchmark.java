@@ -0,0 +1,72 @@
+package com.example.identity_service.configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import com.example.identity_service.BenchmarkContext;
+import com.example.identity_service.dto.request.AuthenticatonRequest;
+import com.example.identity_service.service.AuthenticationService;
+
+// 2 buoc Spring Security chay cho moi request co Bearer token: decode token va chuyen scope thanh authority
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtDecoderBenchmark {
+    ConfigurableApplicationContext context;
+    CustomJwtDecoder jwtDecoder;
+    JwtAuthenticationConverter jwtAuthenticationConverter;
+
+    String token;
+    Jwt jwt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.grantAdminRole(context, 10);
+        jwtDecoder = context.getBean(CustomJwtDecoder.class);
+        jwtAuthenticationConverter = context.getBean(JwtAuthenticationConverter.class);
+
+        token = context.getBean(AuthenticationService.class)
+                .authenticate(AuthenticatonRequest.builder()
+                        .username("admin")
+                        .password("admin")
+                        .build())
+                .get()
+                .getToken();
+        jwt = jwtDecoder.decode(token);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return jwtAuthenticationConverter.convert(jwt);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.identity_service.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.identity_service.BenchmarkContext;
+import com.example.identity_service.cache.CredentialCache.Credential;
+import com.example.identity_service.cache.RoleScopeCache;
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.PermissionRepository;
+import com.example.identity_service.repository.RoleRepository;
+
+// buildScope khi user co nhieu role, moi role nhieu permission
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScopeBenchmark {
+    @Param({"1", "5", "20"})
+    int roles;
+
+    @Param({"5", "50"})
+    int permissionsPerRole;
+
+    ConfigurableApplicationContext context;
+    AuthenticationService authenticationService;
+    Credential credential;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        authenticationService = context.getBean(AuthenticationService.class);
+        PermissionRepository permissionRepository = context.getBean(PermissionRepository.class);
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+
+        List<String> roleNames = new ArrayList<>();
+        for (int i = 0; i < roles; i++) {
+            Set<Permission> permissions = new HashSet<>();
+            for (int j = 0; j < permissionsPerRole; j++)
+                permissions.add(
+                        Permission.builder().name("BENCH_" + i + "_" + j).build());
+            permissionRepository.saveAll(permissions);
+
+            String name = "BENCH_ROLE_" + i;
+            roleRepository.save(
+                    Role.builder().name(name).permissions(permissions).build());
+            roleNames.add(name);
+        }
+        context.getBean(RoleScopeCache.class).invalidate();
+
+        credential = new Credential(null, "bench", null, 0, roleNames);
+        authenticationService.buildScope(credential); // Nap RoleScopeCache truoc khi do
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String buildScope() {
+        return authenticationService.buildScope(credential);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.identity_service.service;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.identity_service.BenchmarkContext;
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.cache.CredentialCache.Credential;
+import com.example.identity_service.cache.VerifiedTokenCache;
+import com.example.identity_service.exception.AppException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+// Cap token va verifyToken voi token hop le (co/khong co VerifiedTokenCache, refresh), het han, sai chu ky, da logout
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenBenchmark {
+    ConfigurableApplicationContext context;
+    AuthenticationService authenticationService;
+    VerifiedTokenCache verifiedTokenCache;
+    Credential credential;
+
+    String validToken;
+    String expiredToken;
+    String badSignatureToken;
+    String revokedToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.grantAdminRole(context, 10);
+        authenticationService = context.getBean(AuthenticationService.class);
+        verifiedTokenCache = context.getBean(VerifiedTokenCache.class);
+        credential = context.getBean(CredentialCache.class).get("admin");
+
+        validToken = authenticationService.generateToken(credential);
+
+        byte[] signerKey = context.getEnvironment().getProperty("jwt.signerKey").getBytes();
+        long now = System.currentTimeMillis();
+        expiredToken = sign(signerKey, new Date(now - 7_200_000), new Date(now - 3_600_000));
+        badSignatureToken = sign("x".repeat(64).getBytes(), new Date(now), new Date(now + 3_600_000));
+
+        revokedToken = authenticationService.generateToken(credential);
+        var claims = SignedJWT.parse(revokedToken).getJWTClaimsSet();
+        context.getBean(TokenRevocationService.class).revoke(claims.getJWTID(), claims.getExpirationTime());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return authenticationService.generateToken(credential);
+    }
+
+    // Duong cua moi request co Bearer token: lay tu VerifiedTokenCache
+    @Benchmark
+    public SignedJWT verifyValidCached() throws Exception {
+        return authenticationService.verifyToken(validToken, false);
+    }
+
+    // Lan dau gap access token: cache miss, parse + verify HMAC + check revoke + put vao cache
+    @Benchmark
+    public SignedJWT verifyValidUncached(CacheMiss cacheMiss) throws Exception {
+        return authenticationService.verifyToken(validToken, false);
+    }
+
+    // /auth/refresh: khong dung VerifiedTokenCache, han tinh tu issueTime + refreshable-duration
+    @Benchmark
+    public SignedJWT verifyRefresh() throws Exception {
+        return authenticationService.verifyToken(validToken, true);
+    }
+
+    @Benchmark
+    public Object verifyExpired() throws Exception {
+        return rejected(expiredToken);
+    }
+
+    @Benchmark
+    public Object verifyBadSignature() throws Exception {
+        return rejected(badSignatureToken);
+    }
+
+    @Benchmark
+    public Object verifyRevoked() throws Exception {
+        return rejected(revokedToken);
+    }
+
+    // Token bi tu choi nem AppException, tra ve exception de JMH khong loai bo
+    private Object rejected(String token) throws Exception {
+        try {
+            return authenticationService.verifyToken(token, false);
+        } catch (AppException e) {
+            return e;
+        }
+    }
+
+    // Xoa token khoi VerifiedTokenCache truoc moi lan goi, ngoai thoi gian do.
+    // State rieng de Level.Invocation khong ap vao cac benchmark khac
+    @State(Scope.Thread)
+    public static class CacheMiss {
+        @Setup(Level.Invocation)
+        public void evict(TokenBenchmark benchmark) {
+            benchmark.verifiedTokenCache.invalidate(benchmark.validToken);
+        }
+    }
+
+    private String sign(byte[] key, Date issueTime, Date expirationTime) throws Exception {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader(JWSAlgorithm.HS512),
+                new JWTClaimsSet.Builder()
+                        .subject(credential.username())
+                        .issuer("hosi.com")
+                        .issueTime(issueTime)
+                        .expirationTime(expirationTime)
+                        .jwtID(UUID.randomUUID().toString())
+                        .claim("scope", authenticationService.buildScope(credential))
+                        .build());
+        jwt.sign(new MACSigner(key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.identity_service.loadtest;
+
+// Cac API duoc do, key dung trong --mix va trong summary.json
+enum Endpoint {
+    TOKEN("token"),
+    INTROSPECT("introspect"),
+    REFRESH("refresh"),
+    LOGOUT("logout"),
+    MY_INFO("my-info"),
+    USERS("users");
+
+    final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    static Endpoint of(String key) {
+        for (Endpoint endpoint : values()) if (endpoint.key.equals(key)) return endpoint;
+        throw new IllegalArgumentException("Endpoint khong ton tai: " + key);
+    }
+}
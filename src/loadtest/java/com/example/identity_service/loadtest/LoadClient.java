@@ -0,0 +1,171 @@
+package com.example.identity_service.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Goi API qua HTTP that. Token dang dang nhap nam trong 1 pool co dinh: token/refresh ghi vao,
+// refresh/logout lay ra (1 token khong bi 2 request dung cung luc), introspect/my-info chi doc
+class LoadClient {
+    // Khong co token trong pool de gui request, khong tinh vao latency
+    static final int SKIPPED = -1;
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final int users;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReferenceArray<String> tokens;
+
+    private String adminToken;
+
+    LoadClient(String baseUrl, LoadTestConfig config) {
+        this.http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.baseUrl = baseUrl;
+        this.timeout = config.timeout();
+        this.users = config.users();
+        this.tokens = new AtomicReferenceArray<>(config.tokenPool());
+    }
+
+    // Dang nhap truoc khi do: token cua admin (GET /users) va day pool token. Moi lan 16 request de khong lam day
+    // hang doi cua pool hash
+    void login(SplittableRandom random) {
+        adminToken = token(LoadSeeder.ADMIN).join();
+        for (int from = 0; from < tokens.length(); from += 16) {
+            List<CompletableFuture<Void>> batch = new ArrayList<>();
+            for (int slot = from; slot < Math.min(tokens.length(), from + 16); slot++) {
+                int index = slot;
+                batch.add(token(LoadSeeder.username(random.nextInt(users)))
+                        .thenAccept(token -> tokens.set(index, token)));
+            }
+            CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).join();
+        }
+    }
+
+    private CompletableFuture<String> token(String username) {
+        return post("/auth/token", Map.of("username", username, "password", LoadSeeder.PASSWORD))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200)
+                        throw new IllegalStateException("Login " + username + " failed: " + response.statusCode());
+                    return resultToken(response);
+                });
+    }
+
+    // Tra ve HTTP status, SKIPPED neu khong gui duoc
+    CompletableFuture<Integer> call(Endpoint endpoint, SplittableRandom random) {
+        switch (endpoint) {
+            case TOKEN -> {
+                int slot = random.nextInt(tokens.length());
+                return post(
+                                "/auth/token",
+                                Map.of(
+                                        "username",
+                                        LoadSeeder.username(random.nextInt(users)),
+                                        "password",
+                                        LoadSeeder.PASSWORD))
+                        .thenApply(response -> {
+                            if (response.statusCode() == 200) tokens.set(slot, resultToken(response));
+                            return response.statusCode();
+                        });
+            }
+            case INTROSPECT -> {
+                String token = peek(random);
+                if (token == null) return CompletableFuture.completedFuture(SKIPPED);
+                return post("/auth/introspect", Map.of("token", token)).thenApply(HttpResponse::statusCode);
+            }
+            case REFRESH -> {
+                Slot slot = take(random);
+                if (slot == null) return CompletableFuture.completedFuture(SKIPPED);
+                return post("/auth/refresh", Map.of("token", slot.token())).thenApply(response -> {
+                    if (response.statusCode() == 200) tokens.compareAndSet(slot.index(), null, resultToken(response));
+                    return response.statusCode();
+                });
+            }
+            case LOGOUT -> {
+                Slot slot = take(random);
+                if (slot == null) return CompletableFuture.completedFuture(SKIPPED);
+                return post("/auth/logout", Map.of("token", slot.token())).thenApply(HttpResponse::statusCode);
+            }
+            case MY_INFO -> {
+                String token = peek(random);
+                if (token == null) return CompletableFuture.completedFuture(SKIPPED);
+                return get("/users/myInfo", token).thenApply(HttpResponse::statusCode);
+            }
+            case USERS -> {
+                // Loc theo prefix ngau nhien de cac trang khac nhau
+                return get("/users?size=20&username=load-" + (1 + random.nextInt(9)), adminToken)
+                        .thenApply(HttpResponse::statusCode);
+            }
+            default -> throw new IllegalArgumentException(endpoint.name());
+        }
+    }
+
+    // Token bat ky trong pool, do tim tu 1 vi tri ngau nhien
+    private String peek(SplittableRandom random) {
+        int start = random.nextInt(tokens.length());
+        for (int i = 0; i < tokens.length(); i++) {
+            String token = tokens.get((start + i) % tokens.length());
+            if (token != null) return token;
+        }
+        return null;
+    }
+
+    // Lay token ra khoi pool, null neu pool rong
+    private Slot take(SplittableRandom random) {
+        int start = random.nextInt(tokens.length());
+        for (int i = 0; i < tokens.length(); i++) {
+            int index = (start + i) % tokens.length();
+            if (tokens.get(index) == null) continue;
+            String token = tokens.getAndSet(index, null);
+            if (token != null) return new Slot(index, token);
+        }
+        return null;
+    }
+
+    private record Slot(int index, String token) {}
+
+    private CompletableFuture<HttpResponse<String>> post(String path, Map<String, String> body) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+            return http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(String path, String token) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String resultToken(HttpResponse<String> response) {
+        try {
+            return objectMapper
+                    .readTree(response.body())
+                    .path("result")
+                    .path("token")
+                    .asText(null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
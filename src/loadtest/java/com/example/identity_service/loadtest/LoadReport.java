@@ -0,0 +1,217 @@
+package com.example.identity_service.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Latency (microsecond) cua moi endpoint trong HDR histogram, tinh tu thoi diem request le ra phai duoc gui
+// (model open) nen server cham thi hang doi cung duoc tinh, khong bi coordinated omission.
+// Ket qua: summary.json (so sanh giua cac build), <endpoint>.hgrm va histograms.hlog (cong cu cua HdrHistogram)
+class LoadReport {
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private long startMillis;
+
+    LoadReport(LoadTestConfig config) {
+        for (Endpoint endpoint : config.mix().keySet()) stats.put(endpoint, new Stats());
+    }
+
+    void record(Endpoint endpoint, long intendedStartNanos, Integer status, Throwable error) {
+        Stats endpointStats = stats.get(endpoint);
+        if (error != null) {
+            endpointStats.failures.increment();
+            return;
+        }
+        if (status == LoadClient.SKIPPED) {
+            endpointStats.skipped.increment();
+            return;
+        }
+        endpointStats.latency.recordValue(Math.min(HIGHEST_MICROS, (System.nanoTime() - intendedStartNanos) / 1000));
+        if (status < 400) endpointStats.ok.increment();
+        else if (status < 500) endpointStats.clientErrors.increment();
+        else endpointStats.serverErrors.increment();
+    }
+
+    void dropped(Endpoint endpoint) {
+        stats.get(endpoint).dropped.increment();
+    }
+
+    // Bo ket qua cua giai doan warmup
+    void reset() {
+        stats.values().forEach(Stats::reset);
+        startMillis = System.currentTimeMillis();
+    }
+
+    void write(LoadTestConfig config, Duration elapsed) throws IOException {
+        Files.createDirectories(config.output());
+        double seconds = elapsed.toNanos() / 1e9;
+        long endMillis = System.currentTimeMillis();
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_MICROS, 3);
+        Stats totalStats = new Stats();
+        try (PrintStream hlog =
+                new PrintStream(Files.newOutputStream(config.output().resolve("histograms.hlog")))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(hlog);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(startMillis);
+            logWriter.outputLegend();
+
+            for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+                String key = entry.getKey().key;
+                Stats endpointStats = entry.getValue();
+                Histogram histogram = endpointStats.latency.getIntervalHistogram();
+                histogram.setTag(key);
+                histogram.setStartTimeStamp(startMillis);
+                histogram.setEndTimeStamp(endMillis);
+                logWriter.outputIntervalHistogram(histogram);
+                try (PrintStream hgrm =
+                        new PrintStream(Files.newOutputStream(config.output().resolve(key + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(hgrm, 1000.0); // microsecond -> millisecond
+                }
+
+                endpoints.put(key, summary(histogram, endpointStats, seconds));
+                total.add(histogram);
+                totalStats.add(endpointStats);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("model", config.model());
+        if (config.model().equals("open")) {
+            report.put("arrival", config.arrival());
+            report.put("rate", config.rate());
+        } else report.put("concurrency", config.concurrency());
+        report.put("users", config.users());
+        report.put("roles", config.roles());
+        report.put("permissionsPerRole", config.permissionsPerRole());
+        report.put("durationSeconds", round(seconds));
+        report.put("endpoints", endpoints);
+        report.put("total", summary(total, totalStats, seconds));
+        Path summaryFile = config.output().resolve("summary.json");
+        objectMapper.writeValue(summaryFile.toFile(), report);
+
+        print(objectMapper.valueToTree(report));
+        if (config.baseline() != null)
+            compare(objectMapper.readTree(config.baseline().toFile()), objectMapper.valueToTree(report));
+        System.out.println("Report written to " + config.output().toAbsolutePath());
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, Stats endpointStats, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("rps", round(histogram.getTotalCount() / seconds));
+        summary.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        summary.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+        summary.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(histogram.getMaxValue()));
+        summary.put("ok", endpointStats.ok.sum());
+        summary.put("clientErrors", endpointStats.clientErrors.sum());
+        summary.put("serverErrors", endpointStats.serverErrors.sum());
+        summary.put("failures", endpointStats.failures.sum());
+        summary.put("skipped", endpointStats.skipped.sum());
+        summary.put("dropped", endpointStats.dropped.sum());
+        return summary;
+    }
+
+    private static void print(JsonNode report) {
+        System.out.printf(
+                "%n%-12s %9s %9s %9s %9s %9s %9s %7s %7s %7s%n",
+                "endpoint", "requests", "rps", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "5xx", "failed");
+        report.path("endpoints").fields().forEachRemaining(entry -> printRow(entry.getKey(), entry.getValue()));
+        printRow("total", report.path("total"));
+    }
+
+    private static void printRow(String name, JsonNode row) {
+        System.out.printf(
+                "%-12s %9d %9.1f %9.3f %9.3f %9.3f %9.3f %7d %7d %7d%n",
+                name,
+                row.path("requests").asLong(),
+                row.path("rps").asDouble(),
+                row.path("p50Ms").asDouble(),
+                row.path("p99Ms").asDouble(),
+                row.path("p999Ms").asDouble(),
+                row.path("maxMs").asDouble(),
+                row.path("clientErrors").asLong(),
+                row.path("serverErrors").asLong(),
+                row.path("failures").asLong());
+    }
+
+    // Chenh lech so voi summary.json cua lan chay truoc, duong = tang
+    private static void compare(JsonNode baseline, JsonNode current) {
+        System.out.printf("%n%-12s %10s %10s %10s%n", "vs baseline", "rps", "p99", "p99.9");
+        current.path("endpoints").fields().forEachRemaining(entry -> {
+            JsonNode before = baseline.path("endpoints").path(entry.getKey());
+            if (!before.isMissingNode()) compareRow(entry.getKey(), before, entry.getValue());
+        });
+        compareRow("total", baseline.path("total"), current.path("total"));
+    }
+
+    private static void compareRow(String name, JsonNode before, JsonNode after) {
+        System.out.printf(
+                "%-12s %10s %10s %10s%n",
+                name, change(before, after, "rps"), change(before, after, "p99Ms"), change(before, after, "p999Ms"));
+    }
+
+    private static String change(JsonNode before, JsonNode after, String field) {
+        double old = before.path(field).asDouble();
+        if (old == 0) return "n/a";
+        return String.format("%+.1f%%", (after.path(field).asDouble() - old) * 100 / old);
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static class Stats {
+        final Recorder latency = new Recorder(HIGHEST_MICROS, 3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        void reset() {
+            latency.reset();
+            ok.reset();
+            clientErrors.reset();
+            serverErrors.reset();
+            failures.reset();
+            skipped.reset();
+            dropped.reset();
+        }
+
+        void add(Stats other) {
+            ok.add(other.ok.sum());
+            clientErrors.add(other.clientErrors.sum());
+            serverErrors.add(other.serverErrors.sum());
+            failures.add(other.failures.sum());
+            skipped.add(other.skipped.sum());
+            dropped.add(other.dropped.sum());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.identity_service.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.cache.RoleScopeCache;
+
+// Tao user/role/permission bang JDBC batch. Moi user dung chung 1 password hash (hash bang PasswordEncoder cua app
+// nen cost giong luc chay that va khong bi rehash khi login)
+class LoadSeeder {
+    static final String PASSWORD = "load-password";
+    static final String ADMIN = "load-admin";
+    private static final int BATCH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+
+    LoadSeeder(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    static String username(int index) {
+        return "load-" + index;
+    }
+
+    void seed(LoadTestConfig config) {
+        long start = System.currentTimeMillis();
+        String password = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<Object[]> permissions = new ArrayList<>();
+        List<Object[]> roles = new ArrayList<>();
+        List<Object[]> rolePermissions = new ArrayList<>();
+        for (int r = 0; r < config.roles(); r++) {
+            roles.add(new Object[] {roleName(r)});
+            for (int p = 0; p < config.permissionsPerRole(); p++) {
+                String permission = "LOAD_PERMISSION_" + r + "_" + p;
+                permissions.add(new Object[] {permission});
+                rolePermissions.add(new Object[] {roleName(r), permission});
+            }
+        }
+        if (jdbcTemplate.queryForObject("select count(*) from role where name = 'ADMIN'", Integer.class) == 0)
+            roles.add(new Object[] {"ADMIN"});
+        batch("insert into permission (name) values (?)", permissions);
+        batch("insert into role (name) values (?)", roles);
+        batch("insert into role_permissions (role_name, permissions_name) values (?, ?)", rolePermissions);
+
+        // Moi user co 2 role lien tiep de scope co do dai giong nhau
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> userRoles = new ArrayList<>();
+        for (int i = 0; i < config.users(); i++) {
+            String id = UUID.randomUUID().toString();
+            users.add(new Object[] {id, username(i), password, "Load", String.valueOf(i)});
+            if (config.roles() > 0) {
+                userRoles.add(new Object[] {id, roleName(i % config.roles())});
+                if (config.roles() > 1) userRoles.add(new Object[] {id, roleName((i + 1) % config.roles())});
+            }
+        }
+        String adminId = UUID.randomUUID().toString();
+        users.add(new Object[] {adminId, ADMIN, password, "Load", "Admin"});
+        userRoles.add(new Object[] {adminId, "ADMIN"});
+        batch(
+                "insert into user (id, username, password, first_name, last_name, token_version, version)"
+                        + " values (?, ?, ?, ?, ?, 0, 0)",
+                users);
+        batch("insert into user_roles (user_id, roles_name) values (?, ?)", userRoles);
+
+        // Ghi thang vao DB nen phai xoa cache cua app
+        context.getBean(RoleScopeCache.class).invalidate();
+        context.getBean(CredentialCache.class).invalidateAll();
+        System.out.printf(
+                "Seeded %d users, %d roles x %d permissions in %d ms%n",
+                config.users(), config.roles(), config.permissionsPerRole(), System.currentTimeMillis() - start);
+    }
+
+    private static String roleName(int index) {
+        return "LOAD_ROLE_" + index;
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH)
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH)));
+    }
+}
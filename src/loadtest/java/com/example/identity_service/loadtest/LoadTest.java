@@ -0,0 +1,123 @@
+package com.example.identity_service.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.identity_service.IdentityServiceApplication;
+
+// Load test end-to-end: khoi dong app tren H2 (profile test), tao du lieu, warmup roi do theo model open
+// (gui theo rate co dinh bat ke server tra loi nhanh hay cham) hoac closed (N worker gui lien tuc).
+// Chay: mvn -Ploadtest -DskipTests test-compile exec:exec -Dloadtest.args="rate=500 duration=60"
+public class LoadTest {
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ConfigurableApplicationContext context = start(config);
+        try {
+            new LoadSeeder(context).seed(config);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+
+            SplittableRandom random = new SplittableRandom(config.seed());
+            LoadClient client = new LoadClient(baseUrl, config);
+            client.login(random);
+
+            LoadReport report = new LoadReport(config);
+            System.out.printf("Warmup %d s...%n", config.warmup().toSeconds());
+            run(config, client, report, config.warmup(), random);
+
+            report.reset();
+            System.out.printf(
+                    "Measuring %d s (%s model)...%n", config.duration().toSeconds(), config.model());
+            long start = System.nanoTime();
+            run(config, client, report, config.duration(), random);
+            report.write(config, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestConfig config) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest_" + UUID.randomUUID()
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN"));
+        arguments.addAll(config.appArgs());
+        return new SpringApplicationBuilder(IdentityServiceApplication.class)
+                .profiles("test")
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private static void run(
+            LoadTestConfig config, LoadClient client, LoadReport report, Duration duration, SplittableRandom random)
+            throws InterruptedException {
+        if (config.model().equals("open")) runOpen(config, client, report, duration, random);
+        else runClosed(config, client, report, duration, random);
+    }
+
+    // 1 thread dat lich: request thu k le ra phai gui luc start + tong khoang cach, latency tinh tu moc do.
+    // Tre lich thi gui bu ngay, khong cho response truoc
+    private static void runOpen(
+            LoadTestConfig config, LoadClient client, LoadReport report, Duration duration, SplittableRandom random)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long next = System.nanoTime();
+        long end = next + duration.toNanos();
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            Endpoint endpoint = config.nextEndpoint(random);
+            if (inFlight.tryAcquire()) {
+                long intended = next;
+                client.call(endpoint, random).whenComplete((status, error) -> {
+                    inFlight.release();
+                    report.record(endpoint, intended, status, error);
+                });
+            } else report.dropped(endpoint);
+
+            next += config.nextArrivalNanos(random);
+        }
+        // Doi cac request con dang chay
+        if (inFlight.tryAcquire(config.maxInFlight(), config.timeout().toSeconds(), TimeUnit.SECONDS))
+            inFlight.release(config.maxInFlight());
+    }
+
+    private static void runClosed(
+            LoadTestConfig config, LoadClient client, LoadReport report, Duration duration, SplittableRandom random)
+            throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency());
+        for (int i = 0; i < config.concurrency(); i++) {
+            SplittableRandom workerRandom = random.split();
+            workers.execute(() -> {
+                while (System.nanoTime() < end) {
+                    Endpoint endpoint = config.nextEndpoint(workerRandom);
+                    long start = System.nanoTime();
+                    try {
+                        report.record(
+                                endpoint,
+                                start,
+                                client.call(endpoint, workerRandom).join(),
+                                null);
+                    } catch (RuntimeException e) {
+                        report.record(endpoint, start, null, e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + config.timeout().toSeconds(), TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.identity_service.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Tham so dang key=value (co the co "--" phia truoc). Tham so app.<property>=value duoc chuyen thang cho app
+// (vd: app.password.hashing.threads=8)
+record LoadTestConfig(
+        int users,
+        int roles,
+        int permissionsPerRole,
+        int tokenPool,
+        String model,
+        String arrival,
+        double rate,
+        int concurrency,
+        int maxInFlight,
+        Duration warmup,
+        Duration duration,
+        Duration timeout,
+        Map<Endpoint, Integer> mix,
+        long seed,
+        Path output,
+        Path baseline,
+        List<String> appArgs) {
+
+    static final Map<String, String> DEFAULTS = defaults();
+
+    private static Map<String, String> defaults() {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("users", "1000");
+        defaults.put("roles", "10");
+        defaults.put("permissions-per-role", "10");
+        defaults.put("token-pool", "200"); // So token dang dang nhap dung cho introspect/refresh/logout/my-info
+        defaults.put("model", "open"); // open: gui theo rate co dinh, closed: concurrency worker gui lien tuc
+        defaults.put("arrival", "uniform"); // uniform hoac poisson (chi dung cho model open)
+        defaults.put("rate", "200"); // Request/giay (model open)
+        defaults.put("concurrency", "32"); // So worker (model closed)
+        defaults.put("max-in-flight", "2000"); // Vuot qua thi request bi tinh la dropped
+        defaults.put("warmup", "10"); // In second
+        defaults.put("duration", "30"); // In second
+        defaults.put("timeout", "30"); // In second
+        // Trong so cua moi endpoint, token nen >= logout de pool token khong can
+        defaults.put("mix", "token=5,introspect=20,refresh=5,logout=5,my-info=45,users=20");
+        defaults.put("seed", "42");
+        defaults.put("output", "target/loadtest");
+        defaults.put("baseline", ""); // summary.json cua lan chay truoc de so sanh
+        return defaults;
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator < 0) throw new IllegalArgumentException("Tham so khong hop le: " + arg + " (dung key=value)");
+            String key = option.substring(0, separator);
+            String value = option.substring(separator + 1);
+            if (key.startsWith("app.")) appArgs.add("--" + key.substring(4) + "=" + value);
+            else if (!DEFAULTS.containsKey(key))
+                throw new IllegalArgumentException(
+                        "Tham so khong ton tai: " + key + ", co the dung: " + DEFAULTS.keySet());
+            else values.put(key, value);
+        }
+
+        String model = values.get("model");
+        if (!model.equals("open") && !model.equals("closed"))
+            throw new IllegalArgumentException("model phai la open hoac closed");
+        String arrival = values.get("arrival");
+        if (!arrival.equals("uniform") && !arrival.equals("poisson"))
+            throw new IllegalArgumentException("arrival phai la uniform hoac poisson");
+
+        return new LoadTestConfig(
+                Integer.parseInt(values.get("users")),
+                Integer.parseInt(values.get("roles")),
+                Integer.parseInt(values.get("permissions-per-role")),
+                Integer.parseInt(values.get("token-pool")),
+                model,
+                arrival,
+                Double.parseDouble(values.get("rate")),
+                Integer.parseInt(values.get("concurrency")),
+                Integer.parseInt(values.get("max-in-flight")),
+                Duration.ofSeconds(Long.parseLong(values.get("warmup"))),
+                Duration.ofSeconds(Long.parseLong(values.get("duration"))),
+                Duration.ofSeconds(Long.parseLong(values.get("timeout"))),
+                parseMix(values.get("mix")),
+                Long.parseLong(values.get("seed")),
+                Path.of(values.get("output")),
+                values.get("baseline").isEmpty() ? null : Path.of(values.get("baseline")),
+                appArgs);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=");
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) weights.put(Endpoint.of(entry[0].trim()), weight);
+        }
+        if (weights.isEmpty()) throw new IllegalArgumentException("mix phai co it nhat 1 endpoint");
+        return weights;
+    }
+
+    // Chon endpoint theo trong so cua mix
+    Endpoint nextEndpoint(SplittableRandom random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = random.nextInt(total);
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) return entry.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    // Thoi gian cho den request tiep theo cua model open
+    long nextArrivalNanos(SplittableRandom random) {
+        double mean = 1_000_000_000d / rate;
+        if (arrival.equals("uniform")) return (long) mean;
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.identity_service.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.repository.projection.CredentialView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+// Cache username -> (password hash, id, tokenVersion, ten role) chi dung cho login va refresh token.
+// Nhieu request cung miss 1 username thi chi 1 request query DB, cac request con lai cho ket qua do.
+// Bi xoa khi user/role thay doi; node khac sua thi het han sau expire-after-write
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CredentialCache {
+    UserRepository userRepository;
+    Cache<String, Credential> cache;
+    ConcurrentHashMap<String, CompletableFuture<Credential>> loading = new ConcurrentHashMap<>();
+    // Tang moi lan invalidate, ket qua load bat dau truoc do khong duoc dua vao cache
+    AtomicLong generation = new AtomicLong();
+    Counter loads;
+    Counter coalescedLoads;
+
+    public CredentialCache(
+            UserRepository userRepository,
+            @Value("${jwt.credential-cache.max-entries}") long maxEntries,
+            @Value("${jwt.credential-cache.expire-after-write}") long expireAfterWriteSeconds,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+        loads = Counter.builder("credentials.loads")
+                .description("Credential lookups that queried the database")
+                .register(meterRegistry);
+        coalescedLoads = Counter.builder("credentials.loads.coalesced")
+                .description("Credential cache misses that waited for a load already in progress")
+                .register(meterRegistry);
+    }
+
+    // Tra ve null neu username khong ton tai (khong cache ket qua nay)
+    public Credential get(String username) {
+        Credential credential = cache.getIfPresent(username);
+        if (credential != null) return credential;
+
+        CompletableFuture<Credential> load = new CompletableFuture<>();
+        CompletableFuture<Credential> inFlight = loading.putIfAbsent(username, load);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            long startGeneration = generation.get();
+            credential = load(username);
+            if (credential != null) {
+                cache.put(username, credential);
+                // Bi invalidate trong luc dang load thi bo ket qua vua put
+                if (generation.get() != startGeneration) cache.invalidate(username);
+            }
+            load.complete(credential);
+            return credential;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(username, load);
+        }
+    }
+
+    // Goi khi password/role/tokenVersion cua user thay doi. Neu dang trong transaction thi xoa them 1 lan sau commit
+    public void invalidateUser(String userId) {
+        afterCommit(() ->
+                cache.asMap().values().removeIf(credential -> credential.id().equals(userId)));
+    }
+
+    // Goi khi role bi xoa hoac gan/go hang loat, khong biet user nao bi anh huong
+    public void invalidateAll() {
+        afterCommit(cache::invalidateAll);
+    }
+
+    private void afterCommit(Runnable invalidation) {
+        generation.incrementAndGet();
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                    invalidation.run();
+                }
+            });
+    }
+
+    // 1 query lay user va ten role
+    private Credential load(String username) {
+        loads.increment();
+        List<CredentialView> rows = userRepository.findCredentialRows(username);
+        if (rows.isEmpty()) return null;
+
+        List<String> roleNames = new ArrayList<>();
+        for (CredentialView row : rows) if (row.getRole() != null) roleNames.add(row.getRole());
+        CredentialView user = rows.get(0);
+        return new Credential(
+                user.getId(), user.getUsername(), user.getPassword(), user.getTokenVersion(), List.copyOf(roleNames));
+    }
+
+    public record Credential(String id, String username, String password, int tokenVersion, List<String> roleNames) {}
+}
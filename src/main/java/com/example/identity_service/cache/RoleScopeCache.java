@@ -0,0 +1,95 @@
+package com.example.identity_service.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.projection.RolePermissionView;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+// Cache role -> doan scope da ghep san (vd: "ROLE_ADMIN CREATE_DATA APPROVE_POST"),
+// cap token chi can ghep cac doan nay thay vi duyet roles/permissions lazy cua user.
+// Danh sach role it nen nap ca bang bang 1 query, bi xoa khi role/permission thay doi
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class RoleScopeCache {
+    // Entry rong: role khong ton tai luc nap, khong dua vao scope
+    private static final String MISSING = "";
+
+    RoleRepository roleRepository;
+
+    @NonFinal
+    volatile Map<String, String> fragments;
+
+    public String scopeOf(Collection<String> roleNames) {
+        Map<String, String> snapshot = fragments;
+        if (snapshot == null || !snapshot.keySet().containsAll(roleNames)) snapshot = load(snapshot, roleNames);
+
+        StringJoiner scope = new StringJoiner(" ");
+        for (String roleName : roleNames) {
+            String fragment = snapshot.get(roleName);
+            if (!fragment.isEmpty()) scope.add(fragment);
+        }
+        return scope.toString();
+    }
+
+    // Goi sau khi tao/xoa role hoac permission. Neu dang trong transaction thi xoa them 1 lan sau commit,
+    // tranh truong hop request khac nap lai du lieu cu truoc khi commit
+    public void invalidate() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+    }
+
+    // Role/permission co the bi sua tu node khac, dinh ky nap lai
+    @Scheduled(fixedDelayString = "${jwt.scope-cache.refresh-interval}")
+    public void refresh() {
+        clear();
+    }
+
+    private synchronized void clear() {
+        fragments = null;
+    }
+
+    // Nap ca bang khi cache trong hoac co role chua co trong cache (role moi tao o node khac). Ten van khong co sau
+    // khi nap (role da bi xoa) thi luu entry rong, cac lan cap token sau khong nap lai nua cho toi lan refresh
+    private synchronized Map<String, String> load(Map<String, String> stale, Collection<String> roleNames) {
+        Map<String, String> current = fragments;
+        // Thread khac vua nap xong trong luc cho lock
+        if (current != null && current != stale && current.keySet().containsAll(roleNames)) return current;
+
+        Map<String, StringJoiner> joiners = new LinkedHashMap<>();
+        for (RolePermissionView row : roleRepository.findAllRolePermissions()) {
+            StringJoiner joiner =
+                    joiners.computeIfAbsent(row.getRole(), role -> new StringJoiner(" ").add("ROLE_" + role));
+            if (row.getPermission() != null) joiner.add(row.getPermission());
+        }
+
+        Map<String, String> loaded = new HashMap<>();
+        joiners.forEach((role, joiner) -> loaded.put(role, joiner.toString()));
+        for (String roleName : roleNames) loaded.putIfAbsent(roleName, MISSING);
+        fragments = loaded;
+        log.debug("Loaded scope fragments of {} roles", joiners.size());
+        return loaded;
+    }
+}
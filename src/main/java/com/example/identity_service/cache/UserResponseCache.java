@@ -0,0 +1,39 @@
+package com.example.identity_service.cache;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.identity_service.dto.response.UserResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+// Cache UserResponse theo (username, version). User bi sua thi version tang nen key cu khong con duoc dung,
+// ke ca khi bi sua tu node khac; invalidate chi de giai phong bo nho som
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserResponseCache {
+    Cache<Key, UserResponse> cache;
+
+    public UserResponseCache(
+            @Value("${users.response-cache.max-entries}") long maxEntries, MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userResponses");
+    }
+
+    public UserResponse get(String username, long version, Supplier<UserResponse> loader) {
+        return cache.get(new Key(username, version), key -> loader.get());
+    }
+
+    public void invalidateUser(String userId) {
+        cache.asMap().values().removeIf(user -> user.getId().equals(userId));
+    }
+
+    private record Key(String username, long version) {}
+}
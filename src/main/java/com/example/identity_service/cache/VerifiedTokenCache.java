@@ -0,0 +1,129 @@
+package com.example.identity_service.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+// Cache cac token da verify thanh cong (chu ky + het han + chua logout), key la SHA-256 cua token.
+// Entry het han cung luc voi token. Revoke tren node khac do RevocationSyncPoller xoa theo jti; khong bat sync
+// thi khong ai bao, entry chi song toi da max-ttl
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class VerifiedTokenCache {
+    Cache<String, SignedJWT> cache;
+    Map<String, String> keysByJti = new ConcurrentHashMap<>(); // jti -> key, sua cung luc voi entry cua key do
+
+    public VerifiedTokenCache(
+            @Value("${jwt.verified-cache.max-entries}") long maxEntries,
+            @Value("${jwt.verified-cache.max-ttl}") long maxTtlMillis,
+            @Value("${revocation.sync.enabled}") boolean syncEnabled,
+            MeterRegistry meterRegistry) {
+        long maxTtlNanos = syncEnabled ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxTtlMillis);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new ExpireAtTokenExpiry(maxTtlNanos))
+                .evictionListener((String key, SignedJWT signedJWT, RemovalCause cause) -> forget(key, signedJWT))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    public SignedJWT get(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    // Ghi entry va jti -> key trong cung 1 compute de khong lech voi invalidate/eviction cua key do
+    public void put(String token, SignedJWT signedJWT) {
+        cache.asMap().compute(digest(token), (key, previous) -> {
+            String jti = jtiOf(signedJWT);
+            if (jti != null) keysByJti.put(jti, key);
+            return signedJWT;
+        });
+    }
+
+    // Goi khi token bi logout/refresh de request sau phai verify lai tu dau
+    public void invalidate(String token) {
+        remove(digest(token));
+    }
+
+    // Dung khi chi biet jti (vd: token bi revoke tren node khac)
+    public void invalidateJti(String jti) {
+        String key = keysByJti.get(jti);
+        if (key == null) return;
+        remove(key);
+        keysByJti.remove(jti, key);
+    }
+
+    private void remove(String key) {
+        cache.asMap().computeIfPresent(key, (k, signedJWT) -> {
+            forget(k, signedJWT);
+            return null;
+        });
+    }
+
+    private void forget(String key, SignedJWT signedJWT) {
+        String jti = jtiOf(signedJWT);
+        if (jti != null) keysByJti.remove(jti, key);
+    }
+
+    private static String jtiOf(SignedJWT signedJWT) {
+        try {
+            return signedJWT.getJWTClaimsSet().getJWTID();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Entry tu het han dung luc claim exp cua token het han, nhung khong qua maxTtlNanos (chi khi tat sync)
+    private record ExpireAtTokenExpiry(long maxTtlNanos) implements Expiry<String, SignedJWT> {
+        @Override
+        public long expireAfterCreate(String key, SignedJWT value, long currentTime) {
+            try {
+                Date expiryTime = value.getJWTClaimsSet().getExpirationTime();
+                long remainingMillis = expiryTime.getTime() - System.currentTimeMillis();
+                return Math.min(TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0)), maxTtlNanos);
+            } catch (ParseException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, SignedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, SignedJWT value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.identity_service.configuration;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Timeout async mac dinh ap cho moi endpoint async (/auth/token, POST /users...). Endpoint can chay lau hon
+// (vd: /users/export) dat request attribute ASYNC_TIMEOUT (millisecond) truoc khi tra ve StreamingResponseBody
+@Configuration
+public class AsyncTimeoutConfig implements WebMvcConfigurer {
+    public static final String ASYNC_TIMEOUT = AsyncTimeoutConfig.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            // Chay truoc khi request chuyen sang async nen van doi duoc timeout
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeout = request.getAttribute(ASYNC_TIMEOUT, RequestAttributes.SCOPE_REQUEST);
+                if (timeout instanceof Long millis && request instanceof AsyncWebRequest asyncWebRequest)
+                    asyncWebRequest.setTimeout(millis);
+            }
+        });
+    }
+}
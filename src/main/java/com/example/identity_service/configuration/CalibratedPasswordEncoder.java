@@ -0,0 +1,83 @@
+package com.example.identity_service.configuration;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+// BCrypt voi cost cau hinh cho ca deployment hoac do tren may dang chay.
+// Cost cau hinh: hash co cost khac (cao hon hoac thap hon) deu hash lai de thoi gian login on dinh.
+// Cost tu do: moi node/lan khoi dong co the ra cost khac nhau, chi hash lai khi cost thap hon de khong hash qua lai
+@Slf4j
+public class CalibratedPasswordEncoder implements PasswordEncoder {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    @Getter
+    private final int strength;
+
+    private final BCryptPasswordEncoder delegate;
+    private final boolean upgradeOnly;
+
+    public CalibratedPasswordEncoder(int strength) {
+        this(strength, false);
+    }
+
+    private CalibratedPasswordEncoder(int strength, boolean upgradeOnly) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.upgradeOnly = upgradeOnly;
+    }
+
+    // Chon cost lon nhat co thoi gian hash <= targetMillis, nhung khong thap hon minStrength
+    public static CalibratedPasswordEncoder calibrate(long targetMillis, int minStrength, int maxStrength) {
+        new BCryptPasswordEncoder(minStrength).encode("warm-up"); // Cho JIT compile truoc khi do
+
+        int strength = minStrength;
+        long millis = measure(strength);
+        // Moi cost tang 1 thi thoi gian tang gap doi, khong can do cost ma chac chan vuot target
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            strength++;
+            millis = measure(strength);
+        }
+
+        log.info("BCrypt cost calibrated to {} (~{} ms per hash, target {} ms)", strength, millis, targetMillis);
+        return new CalibratedPasswordEncoder(strength, true);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) return false;
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) return false;
+
+        int current = Integer.parseInt(matcher.group(1));
+        return upgradeOnly ? current < strength : current != strength;
+    }
+
+    // Lay lan nhanh nhat trong 2 lan do de bot nhieu do GC/scheduler
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+        }
+        return best;
+    }
+}
@@ -1,53 +1,60 @@
 package com.example.identity_service.configuration;
 
 import java.text.ParseException;
-import java.util.Objects;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.Collections;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.stereotype.Component;
 
-import com.example.identity_service.dto.request.IntrospectRequest;
+import com.example.identity_service.exception.AppException;
 import com.example.identity_service.service.AuthenticationService;
 import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jwt.SignedJWT;
 
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
-    @Value("${jwt.signerKey}")
-    private String signerKey;
-
     @Autowired
     private AuthenticationService authenticationService;
 
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+    // Convert cac claim chuan (exp, iat, ...) sang kieu Spring Security mong muon, giong NimbusJwtDecoder
+    private final MappedJwtClaimSetConverter claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
 
     @Override
     public Jwt decode(String token) throws JwtException {
-
+        SignedJWT signedJWT;
         try {
-            var response = authenticationService.introspect(
-                    IntrospectRequest.builder().token(token).build()); // Lấy giá trị của introspect
-
-            if (!response.isValid())
-                throw new JwtException("Token invalid"); // Check xem token có còn hiệu lực hay không?
+            // Parse va verify token 1 lan duy nhat, khong decode lai bang NimbusJwtDecoder nua
+            signedJWT = authenticationService.verifyToken(token, false);
+        } catch (AppException e) {
+            // BadJwtException de Spring Security tra ve 401 (giong NimbusJwtDecoder)
+            throw new BadJwtException("Token invalid");
         } catch (JOSEException | ParseException e) {
-            throw new JwtException(e.getMessage());
+            throw new BadJwtException(e.getMessage());
         }
 
-        // Nếu token còn hiệu lực thì mới thực hiện lệnh dưới
-        if (Objects.isNull(nimbusJwtDecoder)) { // Xác thực token, build token theo spring security
-            SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HS512");
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS512)
+        return createJwt(token, signedJWT);
+    }
+
+    // Build Jwt cua Spring Security tu SignedJWT da duoc verify
+    private Jwt createJwt(String token, SignedJWT signedJWT) {
+        try {
+            Map<String, Object> headers = signedJWT.getHeader().toJSONObject();
+            Map<String, Object> claims =
+                    claimSetConverter.convert(signedJWT.getJWTClaimsSet().getClaims());
+
+            return Jwt.withTokenValue(token)
+                    .headers(h -> h.putAll(headers))
+                    .claims(c -> c.putAll(claims))
                     .build();
+        } catch (ParseException e) {
+            throw new BadJwtException(e.getMessage());
         }
-
-        return nimbusJwtDecoder.decode(token);
     }
 }
@@ -0,0 +1,29 @@
+package com.example.identity_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// 1 PasswordEncoder dung chung cho ca app, cost do luc khoi dong theo phan cung
+@Configuration
+public class PasswordEncoderConfig {
+    @Bean
+    PasswordEncoder passwordEncoder(
+            @Value("${password.encoder.strength}") int strength,
+            @Value("${password.encoder.target-millis}") long targetMillis,
+            @Value("${password.encoder.min-strength}") int minStrength,
+            @Value("${password.encoder.max-strength}") int maxStrength,
+            MeterRegistry meterRegistry) {
+        CalibratedPasswordEncoder encoder = strength > 0
+                ? new CalibratedPasswordEncoder(strength)
+                : CalibratedPasswordEncoder.calibrate(targetMillis, minStrength, maxStrength);
+
+        Gauge.builder("password.encoder.strength", encoder, CalibratedPasswordEncoder::getStrength)
+                .register(meterRegistry);
+        return encoder;
+    }
+}
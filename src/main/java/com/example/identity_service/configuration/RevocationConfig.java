@@ -0,0 +1,30 @@
+package com.example.identity_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.identity_service.revocation.RevocationIndex;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class RevocationConfig {
+    @Bean
+    RevocationIndex revocationIndex(
+            @Value("${revocation.index.expected-entries}") int expectedEntries,
+            @Value("${revocation.index.stripes}") int stripes,
+            MeterRegistry meterRegistry) {
+        RevocationIndex index = new RevocationIndex(expectedEntries, stripes);
+
+        Gauge.builder("revocation.index.occupied", index, RevocationIndex::occupied)
+                .register(meterRegistry);
+        Gauge.builder("revocation.index.capacity", index, RevocationIndex::capacity)
+                .register(meterRegistry);
+        Gauge.builder("revocation.index.memory", index, RevocationIndex::estimatedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return index;
+    }
+}
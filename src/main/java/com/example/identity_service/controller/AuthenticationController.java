@@ -1,6 +1,7 @@
 package com.example.identity_service.controller;
 
 import java.text.ParseException;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -28,9 +29,12 @@ public class AuthenticationController {
     AuthenticationService authenticationService;
 
     @PostMapping("/token")
-    ApiResponse<AuthenticationResponse> authenticate(@RequestBody AuthenticatonRequest request) {
-        var result = authenticationService.authenticate(request);
-        return ApiResponse.<AuthenticationResponse>builder().result(result).build();
+    CompletableFuture<ApiResponse<AuthenticationResponse>> authenticate(@RequestBody AuthenticatonRequest request) {
+        return authenticationService
+                .authenticate(request)
+                .thenApply(result -> ApiResponse.<AuthenticationResponse>builder()
+                        .result(result)
+                        .build());
     }
 
     @PostMapping("/introspect")
@@ -46,6 +50,12 @@ public class AuthenticationController {
         return ApiResponse.<Void>builder().build();
     }
 
+    @PostMapping("/logout-all")
+    ApiResponse<Void> logoutAll(@RequestBody LogoutRequest request) throws ParseException, JOSEException {
+        authenticationService.logoutAll(request);
+        return ApiResponse.<Void>builder().build();
+    }
+
     @PostMapping("/refresh")
     ApiResponse<AuthenticationResponse> authenticate(
             @RequestBody RefreshRequest request) // AuthenticatonResponse là kiểu trả về của funtion này
@@ -4,8 +4,10 @@ import java.util.List;
 
 import org.springframework.web.bind.annotation.*;
 
+import com.example.identity_service.dto.request.PermissionAssignmentRequest;
 import com.example.identity_service.dto.request.PermissionRequest;
 import com.example.identity_service.dto.response.ApiResponse;
+import com.example.identity_service.dto.response.AssignmentResponse;
 import com.example.identity_service.dto.response.PermissionResponse;
 import com.example.identity_service.service.PermissionService;
 
@@ -41,4 +43,22 @@ public class PermissionController {
         permissionService.delete(permission);
         return ApiResponse.<Void>builder().build();
     }
+
+    // Gan permission cho danh sach role
+    @PostMapping("/{permission}/roles")
+    ApiResponse<AssignmentResponse> grantToRoles(
+            @PathVariable String permission, @RequestBody PermissionAssignmentRequest request) {
+        return ApiResponse.<AssignmentResponse>builder()
+                .result(permissionService.grantToRoles(permission, request.getRoles()))
+                .build();
+    }
+
+    // Go permission khoi danh sach role
+    @DeleteMapping("/{permission}/roles")
+    ApiResponse<AssignmentResponse> revokeFromRoles(
+            @PathVariable String permission, @RequestBody PermissionAssignmentRequest request) {
+        return ApiResponse.<AssignmentResponse>builder()
+                .result(permissionService.revokeFromRoles(permission, request.getRoles()))
+                .build();
+    }
 }
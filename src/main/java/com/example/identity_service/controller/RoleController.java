@@ -4,8 +4,10 @@ import java.util.List;
 
 import org.springframework.web.bind.annotation.*;
 
+import com.example.identity_service.dto.request.RoleAssignmentRequest;
 import com.example.identity_service.dto.request.RoleRequest;
 import com.example.identity_service.dto.response.ApiResponse;
+import com.example.identity_service.dto.response.AssignmentResponse;
 import com.example.identity_service.dto.response.RoleResponse;
 import com.example.identity_service.service.RoleService;
 
@@ -41,4 +43,22 @@ public class RoleController {
         roleService.delete(role);
         return ApiResponse.<Void>builder().build();
     }
+
+    // Gan role cho danh sach user
+    @PostMapping("/{role}/users")
+    ApiResponse<AssignmentResponse> grantToUsers(
+            @PathVariable String role, @RequestBody RoleAssignmentRequest request) {
+        return ApiResponse.<AssignmentResponse>builder()
+                .result(roleService.grantToUsers(role, request.getUserIds()))
+                .build();
+    }
+
+    // Go role khoi danh sach user
+    @DeleteMapping("/{role}/users")
+    ApiResponse<AssignmentResponse> revokeFromUsers(
+            @PathVariable String role, @RequestBody RoleAssignmentRequest request) {
+        return ApiResponse.<AssignmentResponse>builder()
+                .result(roleService.revokeFromUsers(role, request.getUserIds()))
+                .build();
+    }
 }
@@ -1,22 +1,37 @@
 package com.example.identity_service.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.identity_service.configuration.AsyncTimeoutConfig;
 import com.example.identity_service.dto.request.UserCreationRequest;
+import com.example.identity_service.dto.request.UserSearchRequest;
 import com.example.identity_service.dto.request.UserUpdateRequest;
 import com.example.identity_service.dto.response.ApiResponse;
+import com.example.identity_service.dto.response.UserImportResponse;
 import com.example.identity_service.dto.response.UserResponse;
+import com.example.identity_service.service.UserExportService;
+import com.example.identity_service.service.UserImportService;
 import com.example.identity_service.service.UserService;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
@@ -28,39 +43,94 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @NonFinal
+    @Value("${users.export.timeout}")
+    long exportTimeout;
+
     @PostMapping
-    ApiResponse<UserResponse> createUser(@RequestBody @Valid UserCreationRequest request) {
+    CompletableFuture<ApiResponse<UserResponse>> createUser(@RequestBody @Valid UserCreationRequest request) {
         log.info("Controller: Create User");
 
-        return ApiResponse.<UserResponse>builder()
-                .result(userService.createUser(request))
-                .build();
+        return userService.createUser(request).thenApply(result -> ApiResponse.<UserResponse>builder()
+                .result(result)
+                .build());
+    }
+
+    // Import hang loat: body la JSON array cua UserCreationRequest hoac CSV co header
+    @PostMapping(
+            value = "/import",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    ApiResponse<UserImportResponse> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) throws IOException {
+        var result = MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                ? userImportService.importJson(body)
+                : userImportService.importCsv(body);
+        return ApiResponse.<UserImportResponse>builder().result(result).build();
     }
 
     @GetMapping
-    ApiResponse<List<UserResponse>> getUsers() {
+    ApiResponse<List<UserResponse>> getUsers(UserSearchRequest request) {
         var authentication =
                 SecurityContextHolder.getContext().getAuthentication(); // Chua thong tin user dang nhap hien tai
 
         // Log ra USER nao va co ROLE la gi khi thuc hien tao tac nay
         log.info("Username: {}", authentication.getName());
         authentication.getAuthorities().forEach(grantedAuthority -> log.info(grantedAuthority.getAuthority()));
+        var page = userService.getUsers(request);
         return ApiResponse.<List<UserResponse>>builder()
-                .result(userService.getUsers())
+                .result(page.getItems())
+                .next(page.getNext())
                 .build();
     }
 
+    // NDJSON, 1 user / dong. Bi dut giua chung thi goi lai voi after = id cua dong cuoi da nhan
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) String after, HttpServletRequest request) {
+        // Stream lau hon timeout async mac dinh, chi noi rong timeout cho endpoint nay
+        request.setAttribute(AsyncTimeoutConfig.ASYNC_TIMEOUT, exportTimeout);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(userExportService.exportUsers(after));
+    }
+
+    // Front-end poll lien tuc: gui lai If-None-Match thi nhan 304 khong body khi user chua doi
     @GetMapping("/myInfo")
-    ApiResponse<UserResponse> getMyInfo() {
-        return ApiResponse.<UserResponse>builder()
-                .result(userService.getMyInfo())
-                .build();
+    ResponseEntity<ApiResponse<UserResponse>> getMyInfo() {
+        return withETag(userService.getMyInfo());
+    }
+
+    @GetMapping("/{userId}")
+    ResponseEntity<ApiResponse<UserResponse>> getUser(@PathVariable String userId) {
+        return withETag(userService.getUser(userId));
     }
 
     @PutMapping("/{userId}")
-    ApiResponse<UserResponse> updateUser(@PathVariable String userId, @RequestBody UserUpdateRequest request) {
-        return ApiResponse.<UserResponse>builder()
-                .result(userService.updateUser(userId, request))
+    CompletableFuture<ApiResponse<UserResponse>> updateUser(
+            @PathVariable String userId, @RequestBody UserUpdateRequest request) {
+        return userService.updateUser(userId, request).thenApply(result -> ApiResponse.<UserResponse>builder()
+                .result(result)
+                .build());
+    }
+
+    // Chi doi cac field duoc gui len, khong gui password thi khong hash lai
+    @PatchMapping("/{userId}")
+    CompletableFuture<ApiResponse<UserResponse>> patchUser(
+            @PathVariable String userId, @RequestBody @Valid UserUpdateRequest request) {
+        return userService.patchUser(userId, request).thenApply(result -> ApiResponse.<UserResponse>builder()
+                .result(result)
+                .build());
+    }
+
+    @PostMapping("/{userId}/revoke-tokens")
+    ApiResponse<String> revokeTokens(@PathVariable String userId) {
+        userService.revokeTokens(userId);
+        return ApiResponse.<String>builder()
+                .result("All tokens of user have been revoked")
                 .build();
     }
 
@@ -69,4 +139,11 @@ public class UserController {
         userService.deleteUser(userId);
         return ApiResponse.<String>builder().result("User has been deleted").build();
     }
+
+    // ETag gom id va version cua user; Spring tu tra 304 khi trung If-None-Match
+    private ResponseEntity<ApiResponse<UserResponse>> withETag(UserResponse user) {
+        return ResponseEntity.ok()
+                .eTag(user.getId() + "-" + user.getVersion())
+                .body(ApiResponse.<UserResponse>builder().result(user).build());
+    }
 }
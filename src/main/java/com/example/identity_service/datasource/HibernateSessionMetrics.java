@@ -0,0 +1,58 @@
+package com.example.identity_service.datasource;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.BaseSessionEventListener;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+// Dang ky qua hibernate.session.events.auto, Hibernate tao 1 instance cho moi session nen khong inject duoc
+// MeterRegistry; Spring Boot da them registry cua app vao Metrics.globalRegistry.
+// Moi service method co transaction dung 1 session, so connection/flush cua session = cua 1 request
+public class HibernateSessionMetrics extends BaseSessionEventListener {
+    private static final Timer CONNECTION_ACQUISITION = Timer.builder("hibernate.session.connection.acquisition")
+            .description("Thoi gian lay JDBC connection cho session")
+            .register(Metrics.globalRegistry);
+    private static final Timer FLUSH = Timer.builder("hibernate.session.flush")
+            .description("Thoi gian flush (dirty checking + UPDATE/INSERT)")
+            .register(Metrics.globalRegistry);
+    private static final DistributionSummary CONNECTIONS = DistributionSummary.builder("hibernate.session.connections")
+            .description("So lan lay JDBC connection trong 1 session")
+            .register(Metrics.globalRegistry);
+
+    private long connectionStart = -1;
+    private long flushStart = -1;
+    private int connections;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        connectionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        connections++;
+        if (connectionStart >= 0)
+            CONNECTION_ACQUISITION.record(System.nanoTime() - connectionStart, TimeUnit.NANOSECONDS);
+        connectionStart = -1;
+    }
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (flushStart >= 0) FLUSH.record(System.nanoTime() - flushStart, TimeUnit.NANOSECONDS);
+        flushStart = -1;
+    }
+
+    @Override
+    public void end() {
+        // Session chi doc cache, khong cham DB thi khong tinh
+        if (connections > 0) CONNECTIONS.record(connections);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.identity_service.datasource;
+
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Transaction readOnly khai bao o service/TransactionTemplate doc tu replica, con lai (ghi, ngoai transaction)
+// dung primary. Phai boc trong LazyConnectionDataSourceProxy: khi transaction bat dau lay connection thi
+// co readOnly chua duoc set, proxy chi lay connection that khi chay cau SQL dau tien
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // Method ke thua tu SimpleJpaRepository (findById, existsById...) cung la readOnly nhung hay duoc goi
+    // ngay truoc 1 lenh ghi (doc version roi save), nen van doc primary
+    private static final String SPRING_DATA_PREFIX = "org.springframework.data.";
+
+    private final ReadYourWrites readYourWrites;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReadWriteRoutingDataSource(
+            DataSource primary, DataSource replica, ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+
+        primaryRoutes =
+                Counter.builder("datasource.routing").tag("target", PRIMARY).register(meterRegistry);
+        replicaRoutes =
+                Counter.builder("datasource.routing").tag("target", REPLICA).register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readsFromReplica()) {
+            replicaRoutes.increment();
+            return REPLICA;
+        }
+        primaryRoutes.increment();
+        return PRIMARY;
+    }
+
+    private boolean readsFromReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return false;
+
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (name != null && name.startsWith(SPRING_DATA_PREFIX)) return false;
+
+        return !readYourWrites.isCurrentUserPinned();
+    }
+}
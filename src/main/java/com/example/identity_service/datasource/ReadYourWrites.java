@@ -0,0 +1,43 @@
+package com.example.identity_service.datasource;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+// User vua ghi (logout, sua thong tin) thi doc tu primary trong 1 khoang ngan, tranh doc lai du lieu cu
+// tu replica chua kip dong bo. Chi co hieu luc tren node da nhan lenh ghi
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ReadYourWrites {
+    Cache<String, Boolean> pinned;
+
+    public ReadYourWrites(@Value("${datasource.replica.read-your-writes-window}") long windowMillis) {
+        pinned = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(windowMillis))
+                .build();
+    }
+
+    public void pin(String username) {
+        if (username != null) pinned.put(username, Boolean.TRUE);
+    }
+
+    // User dang dang nhap, null neu request chua xac thuc
+    public static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    public boolean isCurrentUserPinned() {
+        String username = currentUsername();
+        return username != null && pinned.getIfPresent(username) != null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.identity_service.dto.request;
+
+import java.util.Set;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Danh sach user can gan/go 1 role
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RoleAssignmentRequest {
+    Set<String> userIds;
+}
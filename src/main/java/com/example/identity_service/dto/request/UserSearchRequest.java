@@ -0,0 +1,27 @@
+package com.example.identity_service.dto.request;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Query param cua GET /users, moi filter deu khong bat buoc
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserSearchRequest {
+    String cursor; // Lay tu truong next cua trang truoc
+    Integer size;
+    String username; // Tim theo tien to
+    String role;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate dobFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate dobTo;
+}
@@ -2,6 +2,10 @@ package com.example.identity_service.dto.request;
 
 import java.time.LocalDate;
 
+import jakarta.validation.constraints.Size;
+
+import com.example.identity_service.validator.DobConstraint;
+
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -11,9 +15,13 @@ import lombok.experimental.FieldDefaults;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class UserUpdateRequest {
-
+    // PATCH: field null la khong doi
+    @Size(min = 8, message = "PASSWORD_INVALID")
     String password;
+
     String firstName;
     String lastName;
+
+    @DobConstraint(min = 14, message = "INVALID_DOB")
     LocalDate dob;
 }
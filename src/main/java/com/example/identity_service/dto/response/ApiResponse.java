@@ -17,4 +17,5 @@ public class ApiResponse<T> {
 
     String message;
     T result;
+    String next; // Cursor cua trang tiep theo (API co phan trang)
 }
@@ -0,0 +1,14 @@
+package com.example.identity_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// So dong thuc su bi them/xoa trong bang lien ket (bo qua dong da co/khong ton tai)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AssignmentResponse {
+    int affected;
+}
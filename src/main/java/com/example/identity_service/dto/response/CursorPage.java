@@ -0,0 +1,17 @@
+package com.example.identity_service.dto.response;
+
+import java.util.List;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// 1 trang ket qua phan trang theo cursor, next = null khi da het du lieu
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPage<T> {
+    List<T> items;
+    String next;
+}
@@ -0,0 +1,22 @@
+package com.example.identity_service.dto.response;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// 1 dong NDJSON cua /users/export, roles chi gom ten role
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserExportResponse {
+    String id;
+    String username;
+    String firstName;
+    String lastName;
+    LocalDate dob;
+    List<String> roles;
+}
@@ -0,0 +1,17 @@
+package com.example.identity_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Loi cua 1 dong khi import, row bat dau tu 1 (CSV khong tinh dong header)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserImportError {
+    long row;
+    String username;
+    int code;
+    String message;
+}
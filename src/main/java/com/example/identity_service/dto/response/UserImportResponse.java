@@ -0,0 +1,20 @@
+package com.example.identity_service.dto.response;
+
+import java.util.List;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserImportResponse {
+    long total;
+    long imported;
+    long failed;
+    long durationMillis;
+    double rowsPerSecond;
+    List<UserImportError> errors; // Chi giu toi da users.import.max-reported-errors loi dau tien
+}
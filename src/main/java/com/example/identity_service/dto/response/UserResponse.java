@@ -3,8 +3,6 @@ package com.example.identity_service.dto.response;
 import java.time.LocalDate;
 import java.util.Set;
 
-import com.example.identity_service.entity.Role;
-
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -19,5 +17,6 @@ public class UserResponse {
     String firstName;
     String lastName;
     LocalDate dob;
-    Set<Role> roles;
+    Set<RoleResponse> roles;
+    long version;
 }
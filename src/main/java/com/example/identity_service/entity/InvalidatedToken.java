@@ -4,19 +4,38 @@ import java.util.Date;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 @Entity
+@Table(
+        indexes = {
+            @Index(name = "idx_invalidated_token_expiry_time", columnList = "expiryTime"),
+            @Index(name = "idx_invalidated_token_expiry_bucket", columnList = "expiryBucket"),
+            @Index(name = "idx_invalidated_token_revoked_at", columnList = "revokedAt, id")
+        })
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class InvalidatedToken {
+    // Moi bucket chua cac token het han trong cung 1 gio
+    public static final long BUCKET_MILLIS = 3_600_000L;
+
     @Id
     String id; // Là jwtID
 
     Date expiryTime; // Là thời gian hết hạn của Token
+
+    long expiryBucket; // = expiryTime / BUCKET_MILLIS, dung de xoa ca bucket da het han
+
+    Date revokedAt; // Thoi diem revoke, cac node khac dung lam watermark de keo revocation moi ve
+
+    public static long bucketOf(Date time) {
+        return Math.floorDiv(time.getTime(), BUCKET_MILLIS);
+    }
 }
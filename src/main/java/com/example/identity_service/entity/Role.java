@@ -4,6 +4,8 @@ import java.util.Set;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 
 import lombok.*;
@@ -22,6 +24,11 @@ public class Role {
 
     String description;
 
+    // Ten bang/cot ghi ro vi RoleRepository ghi thang vao bang nay bang native query
     @ManyToMany
+    @JoinTable(
+            name = "role_permissions",
+            joinColumns = @JoinColumn(name = "role_name"),
+            inverseJoinColumns = @JoinColumn(name = "permissions_name"))
     Set<Permission> permissions;
 }
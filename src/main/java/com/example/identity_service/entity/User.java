@@ -5,10 +5,18 @@ import java.util.Set;
 
 import jakarta.persistence.*;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 @Entity
+@DynamicUpdate // UPDATE chi gom cac cot thuc su thay doi (PATCH doi firstName khong ghi lai password...)
+// Schema tao bang db/migration, annotation chi de mo ta. username unique: signup chi can 1 INSERT,
+// dung cho ca findByUsername va sap xep/cursor (username, id) cua GET /users; dob: loc theo khoang ngay sinh
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_username", columnNames = "username"),
+        indexes = @Index(name = "idx_user_dob", columnList = "dob"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -25,6 +33,19 @@ public class User {
     String lastName;
     LocalDate dob;
 
+    // Tang len 1 khi "logout khoi moi thiet bi", token co claim ver nho hon se bi tu choi
+    int tokenVersion;
+
+    // Tang moi lan user/role cua user thay doi: optimistic lock cho updateUser, key cua UserResponseCache va ETag
+    @Version
+    long version;
+
+    // Index tren roles_name de loc user theo role, user_id dung index cua foreign key
     @ManyToMany
+    @JoinTable(
+            name = "user_roles",
+            joinColumns = @JoinColumn(name = "user_id"),
+            inverseJoinColumns = @JoinColumn(name = "roles_name"),
+            indexes = @Index(name = "idx_user_roles_roles_name", columnList = "roles_name"))
     Set<Role> roles; // Set dam bao cac phan tu la  UNIQUE EEEEE
 }
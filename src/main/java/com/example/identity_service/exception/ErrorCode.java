@@ -15,7 +15,12 @@ public enum ErrorCode {
     USER_NOT_EXISTED(1004, "User not existed", HttpStatus.NOT_FOUND),
     UNAUTHENTICATED(1005, "Unauthenticated", HttpStatus.UNAUTHORIZED),
     UNAUTHORIZED(1006, "You do not have permission", HttpStatus.FORBIDDEN),
-    INVALID_DOB(1007, "Your age must be at least {min}", HttpStatus.BAD_REQUEST);
+    INVALID_DOB(1007, "Your age must be at least {min}", HttpStatus.BAD_REQUEST),
+    SERVER_BUSY(1008, "Server is busy, please try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    INVALID_CURSOR(1009, "Invalid cursor", HttpStatus.BAD_REQUEST),
+    ROLE_NOT_EXISTED(1010, "Role not existed", HttpStatus.NOT_FOUND),
+    PERMISSION_NOT_EXISTED(1011, "Permission not existed", HttpStatus.NOT_FOUND),
+    USER_MODIFIED(1012, "User has been modified, please reload and try again", HttpStatus.CONFLICT);
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
         this.code = code;
@@ -5,6 +5,9 @@ import java.util.Objects;
 
 import jakarta.validation.ConstraintViolation;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -20,6 +23,10 @@ import lombok.extern.slf4j.Slf4j;
 // Class này khai báo ra để khi có 1 exception nào đó xảy ra thì class này sẽ chịu trách nhiệm xử lý
 public class GlobalExceptionHandler {
     private static final String MIN_ATTRIBUTE = "min";
+
+    @Value("${password.hashing.retry-after}")
+    private String retryAfter;
+
     // Tương ứng với từng exception là các method khác nhau
     @ExceptionHandler(value = Exception.class) // Danh cho cac expection chua duoc phan loai
     ResponseEntity<ApiResponse> handlingRuntimeException(RuntimeException exception) {
@@ -37,7 +44,12 @@ public class GlobalExceptionHandler {
 
         apiResponse.setCode(errorCode.getCode());
         apiResponse.setMessage(errorCode.getMessage());
-        return ResponseEntity.status(errorCode.getStatusCode()).body(apiResponse);
+
+        var response = ResponseEntity.status(errorCode.getStatusCode());
+        // Bao client bao lau nua thi thu lai khi server qua tai
+        if (errorCode.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+            response.header(HttpHeaders.RETRY_AFTER, retryAfter);
+        return response.body(apiResponse);
     }
 
     @ExceptionHandler(value = AccessDeniedException.class) // Bắt và xử lý Exception Denied
@@ -1,11 +1,19 @@
 package com.example.identity_service.mapper;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import com.example.identity_service.dto.request.RoleRequest;
+import com.example.identity_service.dto.response.PermissionResponse;
 import com.example.identity_service.dto.response.RoleResponse;
 import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.projection.RoleRowView;
 
 @Mapper(componentModel = "spring")
 public interface RoleMapper {
@@ -13,4 +21,24 @@ public interface RoleMapper {
     Role toRole(RoleRequest request); // Map roleReq vao Role
 
     RoleResponse toRoleResponse(Role role);
+
+    // Gom cac row (role, permission) cua projection thanh RoleResponse, giu thu tu role xuat hien
+    default List<RoleResponse> toRoleResponses(List<? extends RoleRowView> rows) {
+        Map<String, RoleResponse> roles = new LinkedHashMap<>();
+        for (RoleRowView row : rows) {
+            if (row.getRole() == null) continue;
+            RoleResponse role = roles.computeIfAbsent(row.getRole(), name -> RoleResponse.builder()
+                    .name(name)
+                    .description(row.getRoleDescription())
+                    .permissions(new HashSet<>())
+                    .build());
+            if (row.getPermission() != null)
+                role.getPermissions()
+                        .add(PermissionResponse.builder()
+                                .name(row.getPermission())
+                                .description(row.getPermissionDescription())
+                                .build());
+        }
+        return new ArrayList<>(roles.values());
+    }
 }
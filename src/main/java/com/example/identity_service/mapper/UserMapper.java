@@ -1,14 +1,18 @@
 package com.example.identity_service.mapper;
 
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import com.example.identity_service.dto.request.UserCreationRequest;
 import com.example.identity_service.dto.request.UserUpdateRequest;
 import com.example.identity_service.dto.response.UserResponse;
 import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.projection.UserRowView;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = RoleMapper.class)
 public interface UserMapper {
 
     User toUser(
@@ -18,6 +22,16 @@ public interface UserMapper {
 
     UserResponse toUserResponse(User user);
 
+    // Roles duoc gom rieng tu nhieu row bang RoleMapper.toRoleResponses
+    @Mapping(target = "roles", ignore = true)
+    UserResponse toUserResponse(UserRowView row);
+
+    @Mapping(target = "password", ignore = true) // Password phai hash truoc khi gan
     void updateUser(
             @MappingTarget User user, UserUpdateRequest request); // Map data tu req vao User, Dùng trong hàm UpdateUser
+
+    // PATCH: chi gan cac field co gia tri, field null giu nguyen
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "password", ignore = true)
+    void patchUser(@MappingTarget User user, UserUpdateRequest request);
 }
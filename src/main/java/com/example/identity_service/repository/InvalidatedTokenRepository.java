@@ -1,9 +1,42 @@
 package com.example.identity_service.repository;
 
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.repository.projection.RevokedTokenView;
 
 @Repository
-public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {}
+public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+    long countByExpiryTimeAfter(Date time);
+
+    // Chi lay cot id cua cac token con han, dung de build lai bloom filter (phai goi trong transaction)
+    @Query("select t.id from InvalidatedToken t where t.expiryTime > :time")
+    Stream<String> streamIdsByExpiryTimeAfter(Date time);
+
+    @Query("select t.id as id, t.expiryTime as expiryTime, t.revokedAt as revokedAt from InvalidatedToken t"
+            + " where t.expiryTime > :time")
+    Stream<RevokedTokenView> streamByExpiryTimeAfter(Date time);
+
+    // Cac token bi revoke sau cursor (revokedAt, id) (co the do node khac revoke). Phan trang theo ca id de khong bo
+    // sot
+    // cac row trung revokedAt nam o 2 trang khac nhau
+    @Query("select t.id as id, t.expiryTime as expiryTime, t.revokedAt as revokedAt from InvalidatedToken t"
+            + " where t.revokedAt > :since or (t.revokedAt = :since and t.id > :id) order by t.revokedAt, t.id")
+    List<RevokedTokenView> findRevokedAfter(Date since, String id, Pageable pageable);
+
+    // Cac bucket ma moi token ben trong deu da het han
+    @Query(
+            "select distinct t.expiryBucket from InvalidatedToken t where t.expiryBucket < :bucket order by t.expiryBucket")
+    List<Long> findExpiredBuckets(long bucket);
+
+    // Check them expiryTime cho cac row cu chua co bucket (expiryBucket = 0)
+    @Query("select t.id from InvalidatedToken t where t.expiryBucket = :bucket and t.expiryTime < :now")
+    List<String> findExpiredIdsByBucket(long bucket, Date now, Pageable pageable);
+}
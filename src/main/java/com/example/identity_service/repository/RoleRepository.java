@@ -1,9 +1,46 @@
 package com.example.identity_service.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.projection.RolePermissionView;
+import com.example.identity_service.repository.projection.RoleRowView;
 
 @Repository
-public interface RoleRepository extends JpaRepository<Role, String> {}
+public interface RoleRepository extends JpaRepository<Role, String> {
+    // RoleResponse/UserResponse tra ve ca permissions, fetch chung voi role
+    @EntityGraph(attributePaths = "permissions")
+    Optional<Role> findWithPermissionsByName(String name);
+
+    // GET /roles: chi cac cot cua RoleResponse, khong load entity
+    @Query("select r.name as role, r.description as roleDescription, p.name as permission,"
+            + " p.description as permissionDescription from Role r left join r.permissions p")
+    List<RoleRowView> findAllRows();
+
+    // Tat ca cap (role, permission) trong 1 query, dung de nap RoleScopeCache
+    @Query("select r.name as role, p.name as permission from Role r left join r.permissions p")
+    List<RolePermissionView> findAllRolePermissions();
+
+    // Gan/go 1 permission cho nhieu role bang 1 cau SQL tren bang role_permissions
+    @Modifying(clearAutomatically = true)
+    @Query(
+            value = "insert into role_permissions (role_name, permissions_name) select r.name, :permission from role r"
+                    + " where r.name in :roles and not exists (select 1 from role_permissions rp"
+                    + " where rp.role_name = r.name and rp.permissions_name = :permission)",
+            nativeQuery = true)
+    int grantPermission(String permission, Collection<String> roles);
+
+    @Modifying(clearAutomatically = true)
+    @Query(
+            value = "delete from role_permissions where permissions_name = :permission and role_name in :roles",
+            nativeQuery = true)
+    int revokePermission(String permission, Collection<String> roles);
+}
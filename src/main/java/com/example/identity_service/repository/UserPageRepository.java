@@ -0,0 +1,14 @@
+package com.example.identity_service.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.projection.UserPageKey;
+
+// Keyset paging cua GET /users: chi select (id, username), khong load entity User
+public interface UserPageRepository {
+    // WHERE filter AND (username, id) > after ORDER BY username, id LIMIT limit; after = null la trang dau
+    List<UserPageKey> findPageKeys(Specification<User> filter, UserPageKey after, int limit);
+}
@@ -0,0 +1,50 @@
+package com.example.identity_service.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.projection.UserPageKey;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+class UserPageRepositoryImpl implements UserPageRepository {
+    EntityManager entityManager;
+
+    @Override
+    public List<UserPageKey> findPageKeys(Specification<User> filter, UserPageKey after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserPageKey> query = cb.createQuery(UserPageKey.class);
+        Root<User> root = query.from(User.class);
+        Path<String> id = root.get("id");
+        Path<String> username = root.get("username");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) predicates.add(predicate);
+        }
+        if (after != null)
+            predicates.add(cb.or(
+                    cb.greaterThan(username, after.username()),
+                    cb.and(cb.equal(username, after.username()), cb.greaterThan(id, after.id()))));
+
+        query.select(cb.construct(UserPageKey.class, id, username))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(username), cb.asc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -1,17 +1,128 @@
 package com.example.identity_service.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.projection.CredentialView;
+import com.example.identity_service.repository.projection.TokenVersionView;
+import com.example.identity_service.repository.projection.UserExportView;
+import com.example.identity_service.repository.projection.UserRowView;
+import com.example.identity_service.repository.projection.UserVersionView;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
+public interface UserRepository extends JpaRepository<User, String>, UserPageRepository {
     // Khi gọi method này thì JPA của Spring nó tự tạo 1 query để check xem userName đã tồn tại hay chưa?
     boolean existsByUsername(String username);
 
     Optional<User> findByUsername(
             String username); // Khi tao ra method findByUsername thi api spring tu dong tim Username cua entity
+
+    // Update user tra ve UserResponse can ca roles va permissions cua role, fetch chung trong 1 query
+    // (open-in-view da tat, lazy load sau khi ra khoi repository se loi)
+    @EntityGraph(attributePaths = {"roles", "roles.permissions"})
+    Optional<User> findWithRolesById(String id);
+
+    @Override
+    @EntityGraph(attributePaths = {"roles", "roles.permissions"})
+    List<User> findAll();
+
+    // Read path (getUsers/getUser/getMyInfo): chi cac cot cua UserResponse, roles va permissions trong cung 1 query.
+    // Projection khong vao persistence context nen khong co snapshot dirty checking
+    @Query("select u.id as id, u.username as username, u.firstName as firstName, u.lastName as lastName,"
+            + " u.dob as dob, u.version as version, r.name as role, r.description as roleDescription,"
+            + " p.name as permission, p.description as permissionDescription"
+            + " from User u left join u.roles r left join r.permissions p where u.id in :ids")
+    List<UserRowView> findRowsByIdIn(Collection<String> ids);
+
+    // Query nhe truoc khi dung UserResponseCache: chi lay id, username, version
+    Optional<UserVersionView> findVersionByUsername(String username);
+
+    Optional<UserVersionView> findVersionById(String id);
+
+    // Role cua user bi doi bang native query thi phai tu tang version (UserResponse co roles)
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update user set version = version + 1 where id in :userIds", nativeQuery = true)
+    int incrementVersions(Collection<String> userIds);
+
+    // Permission cua role bi doi: tang version cua moi user co role do
+    @Modifying(clearAutomatically = true)
+    @Query(
+            value = "update user set version = version + 1"
+                    + " where id in (select ur.user_id from user_roles ur where ur.roles_name in :roles)",
+            nativeQuery = true)
+    int incrementVersionsByRoles(Collection<String> roles);
+
+    // Permission bi sua/xoa: tang version cua moi user co role chua permission do
+    @Modifying(clearAutomatically = true)
+    @Query(
+            value =
+                    "update user set version = version + 1 where id in (select ur.user_id from user_roles ur"
+                            + " join role_permissions rp on rp.role_name = ur.roles_name where rp.permissions_name in :permissions)",
+            nativeQuery = true)
+    int incrementVersionsByPermissions(Collection<String> permissions);
+
+    // Tang tokenVersion bang 1 cau UPDATE, khong can load entity
+    @Modifying
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+    int incrementTokenVersion(String id);
+
+    // Export: 1 query duy nhat, doc forward-only theo lo fetch size (MySQL can useCursorFetch=true),
+    // projection khong vao persistence context nen bo nho khong tang theo so row
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.username as username, u.firstName as firstName, u.lastName as lastName,"
+            + " u.dob as dob, r.name as role from User u left join u.roles r where u.id > :after order by u.id")
+    Stream<UserExportView> streamForExport(String after);
+
+    // Import hang loat: username nao trong danh sach da ton tai, 1 query cho ca lo
+    @Query("select u.username from User u where u.username in :usernames")
+    Set<String> findExistingUsernames(Collection<String> usernames);
+
+    // Login: user va ten role trong 1 query, khong load entity
+    @Query("select u.id as id, u.username as username, u.password as password, u.tokenVersion as tokenVersion,"
+            + " r.name as role from User u left join u.roles r where u.username = :username")
+    List<CredentialView> findCredentialRows(String username);
+
+    // Gan/go 1 role cho nhieu user bang 1 cau SQL tren bang user_roles, khong load entity.
+    // Id khong ton tai hoac user da co role thi bo qua
+    @Modifying(clearAutomatically = true)
+    @Query(
+            value = "insert into user_roles (user_id, roles_name) select u.id, :role from user u where u.id in :userIds"
+                    + " and not exists (select 1 from user_roles ur where ur.user_id = u.id and ur.roles_name = :role)",
+            nativeQuery = true)
+    int grantRole(String role, Collection<String> userIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "delete from user_roles where roles_name = :role and user_id in :userIds", nativeQuery = true)
+    int revokeRole(String role, Collection<String> userIds);
+
+    // Chi ghi de khi password chua bi doi trong luc dang hash lai
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePasswordIfUnchanged(String id, String oldPassword, String newPassword);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(String id);
+
+    // Chi nhung user da tung revoke all moi co tokenVersion > 0
+    @Query("select u.username as username, u.tokenVersion as tokenVersion from User u where u.tokenVersion > 0")
+    List<TokenVersionView> findRaisedTokenVersions();
 }
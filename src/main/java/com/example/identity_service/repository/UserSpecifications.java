@@ -0,0 +1,34 @@
+package com.example.identity_service.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.identity_service.entity.User;
+
+// Cac dieu kien loc user, null thi bo qua dieu kien do
+public final class UserSpecifications {
+    private UserSpecifications() {}
+
+    // LIKE 'prefix%' van dung duoc index tren username
+    public static Specification<User> usernameStartsWith(String prefix) {
+        if (prefix == null || prefix.isEmpty()) return null;
+        String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return (root, query, cb) -> cb.like(root.get("username"), escaped + "%", '\\');
+    }
+
+    // Moi user chi co 1 row cho 1 role nen join khong lam trung ket qua
+    public static Specification<User> hasRole(String role) {
+        if (role == null || role.isEmpty()) return null;
+        return (root, query, cb) -> cb.equal(root.join("roles").get("name"), role);
+    }
+
+    public static Specification<User> dobBetween(LocalDate from, LocalDate to) {
+        if (from == null && to == null) return null;
+        return (root, query, cb) -> {
+            if (from == null) return cb.lessThanOrEqualTo(root.get("dob"), to);
+            if (to == null) return cb.greaterThanOrEqualTo(root.get("dob"), from);
+            return cb.between(root.get("dob"), from, to);
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.identity_service.repository.projection;
+
+// 1 row = 1 cap (user, role) dung cho login; user khong co role thi role = null
+public interface CredentialView {
+    String getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    int getTokenVersion();
+
+    String getRole();
+}
@@ -0,0 +1,12 @@
+package com.example.identity_service.repository.projection;
+
+import java.util.Date;
+
+// Chi doc 2 cot can thiet cua InvalidatedToken, khong tao entity trong persistence context
+public interface RevokedTokenView {
+    String getId();
+
+    Date getExpiryTime();
+
+    Date getRevokedAt();
+}
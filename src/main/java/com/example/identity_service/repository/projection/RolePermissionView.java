@@ -0,0 +1,8 @@
+package com.example.identity_service.repository.projection;
+
+// 1 cap (role, permission); role khong co permission thi permission = null
+public interface RolePermissionView {
+    String getRole();
+
+    String getPermission();
+}
@@ -0,0 +1,12 @@
+package com.example.identity_service.repository.projection;
+
+// 1 row = 1 cap (role, permission) kem description; role khong co permission thi permission = null
+public interface RoleRowView {
+    String getRole();
+
+    String getRoleDescription();
+
+    String getPermission();
+
+    String getPermissionDescription();
+}
@@ -0,0 +1,8 @@
+package com.example.identity_service.repository.projection;
+
+// Username va tokenVersion cua User, dung de nap TokenGenerationRegistry
+public interface TokenVersionView {
+    String getUsername();
+
+    int getTokenVersion();
+}
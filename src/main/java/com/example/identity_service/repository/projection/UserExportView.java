@@ -0,0 +1,18 @@
+package com.example.identity_service.repository.projection;
+
+import java.time.LocalDate;
+
+// 1 row = 1 cap (user, role); user khong co role thi role = null
+public interface UserExportView {
+    String getId();
+
+    String getUsername();
+
+    String getFirstName();
+
+    String getLastName();
+
+    LocalDate getDob();
+
+    String getRole();
+}
@@ -0,0 +1,4 @@
+package com.example.identity_service.repository.projection;
+
+// Khoa sap xep cua GET /users, dung lam cursor
+public record UserPageKey(String id, String username) {}
@@ -0,0 +1,19 @@
+package com.example.identity_service.repository.projection;
+
+import java.time.LocalDate;
+
+// 1 row = 1 cap (user, role, permission) chi gom cac cot cua UserResponse (khong co password),
+// user khong co role thi role = null
+public interface UserRowView extends RoleRowView {
+    String getId();
+
+    String getUsername();
+
+    String getFirstName();
+
+    String getLastName();
+
+    LocalDate getDob();
+
+    long getVersion();
+}
@@ -0,0 +1,10 @@
+package com.example.identity_service.repository.projection;
+
+// Chi id, username va version de kiem tra UserResponseCache/ETag, khong load entity
+public interface UserVersionView {
+    String getId();
+
+    String getUsername();
+
+    long getVersion();
+}
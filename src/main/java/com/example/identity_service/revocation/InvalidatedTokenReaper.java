@@ -0,0 +1,87 @@
+package com.example.identity_service.revocation;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+// Xoa dinh ky cac row InvalidatedToken da het han, theo tung bucket va tung batch nho de khong giu lock lau
+@Component
+@ConditionalOnProperty(name = "revocation.store", havingValue = "jpa", matchIfMissing = true)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class InvalidatedTokenReaper {
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    int batchSize;
+
+    Counter purgedRows;
+    Timer purgeTimer;
+    AtomicLong tableSize = new AtomicLong();
+
+    public InvalidatedTokenReaper(
+            InvalidatedTokenRepository invalidatedTokenRepository,
+            @Value("${revocation.purge.batch-size}") int batchSize,
+            MeterRegistry meterRegistry) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.batchSize = batchSize;
+
+        purgedRows = Counter.builder("revocation.purge.rows").register(meterRegistry);
+        purgeTimer = Timer.builder("revocation.purge.duration").register(meterRegistry);
+        Gauge.builder("revocation.table.size", tableSize, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${revocation.purge.interval}", fixedDelayString = "${revocation.purge.interval}")
+    public void purgeExpired() {
+        long start = System.nanoTime();
+        long purged = 0;
+
+        // Bucket nho hon bucket hien tai thi tat ca token ben trong da het han
+        Date now = new Date();
+        long currentBucket = InvalidatedToken.bucketOf(now);
+        for (Long bucket : invalidatedTokenRepository.findExpiredBuckets(currentBucket)) {
+            purged += purgeBucket(bucket, now);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        purgedRows.increment(purged);
+        purgeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        tableSize.set(invalidatedTokenRepository.count());
+
+        log.info(
+                "Purged {} expired invalidated tokens in {} ms, {} rows remaining",
+                purged,
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                tableSize.get());
+    }
+
+    // Moi batch la 1 transaction rieng (deleteAllByIdInBatch), lock chi giu trong thoi gian xoa batch do
+    private long purgeBucket(long bucket, Date now) {
+        long purged = 0;
+        List<String> ids;
+        do {
+            ids = invalidatedTokenRepository.findExpiredIdsByBucket(bucket, now, PageRequest.ofSize(batchSize));
+            if (!ids.isEmpty()) {
+                invalidatedTokenRepository.deleteAllByIdInBatch(ids);
+                purged += ids.size();
+            }
+        } while (ids.size() == batchSize);
+        return purged;
+    }
+}
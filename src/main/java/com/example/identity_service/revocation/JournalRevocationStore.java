@@ -0,0 +1,278 @@
+package com.example.identity_service.revocation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Luu revocation vao journal append-only (file map vao bo nho), thay cho INSERT vao InvalidatedToken.
+// Logout/refresh chi ghi vao MappedByteBuffer, fsync gom nhom theo chu ky flush-interval.
+// Moi record co dinh 32 byte: msb(8) lsb(8) expiry epoch second(8) crc32(4) magic(4).
+// Journal la file local cua tung node, revoke tren node nay khong bao gio den node khac: chi dung khi chay 1 instance.
+// Khi mo (truoc khi web server nhan request) nap luon cac token con han vao RevocationIndex
+@Component
+@ConditionalOnProperty(name = "revocation.store", havingValue = "journal")
+@Slf4j
+public class JournalRevocationStore implements RevocationStore {
+    private static final int RECORD_SIZE = 32;
+    private static final int MAGIC = 0x52564B31; // "RVK1"
+    private static final String SEGMENT_PREFIX = "revocations-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final RevocationIndex revocationIndex;
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long flushIntervalMillis;
+
+    private final List<ClosedSegment> closedSegments = new ArrayList<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "revocation-journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Segment dang ghi; moi truy cap deu nam trong synchronized (this)
+    private long segmentSequence;
+    private Path segmentPath;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentMaxExpiry;
+    private int flushedPosition;
+
+    public JournalRevocationStore(
+            RevocationIndex revocationIndex,
+            @Value("${revocation.journal.directory}") String directory,
+            @Value("${revocation.journal.records-per-segment}") int recordsPerSegment,
+            @Value("${revocation.journal.flush-interval}") long flushIntervalMillis,
+            @Value("${revocation.sync.enabled}") boolean syncEnabled) {
+        // RevocationSyncPoller doc tu bang InvalidatedToken, journal khong ghi vao do nen khong dong bo duoc
+        if (syncEnabled)
+            throw new IllegalStateException("revocation.store=journal only supports a single instance,"
+                    + " set revocation.sync.enabled=false or use revocation.store=jpa");
+        this.revocationIndex = revocationIndex;
+        this.directory = Path.of(directory);
+        this.recordsPerSegment = recordsPerSegment;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Path> segments = listSegments();
+        long now = System.currentTimeMillis() / 1000;
+        long[] loaded = new long[1];
+        BiConsumer<UUID, Long> load = (jti, expiry) -> {
+            if (expiry <= now) return;
+            revocationIndex.add(jti, Instant.ofEpochSecond(expiry));
+            loaded[0]++;
+        };
+        for (int i = 0; i < segments.size() - 1; i++) {
+            long maxExpiry = replay(segments.get(i), load);
+            closedSegments.add(new ClosedSegment(segments.get(i), maxExpiry));
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            // Ghi tiep vao segment cuoi, ngay sau record hop le cuoi cung
+            Path last = segments.get(segments.size() - 1);
+            long[] validRecords = new long[1];
+            segmentMaxExpiry = replay(last, (jti, expiry) -> {
+                validRecords[0]++;
+                load.accept(jti, expiry);
+            });
+            mapSegment(sequenceOf(last), last);
+            buffer.position((int) (validRecords[0] * RECORD_SIZE));
+            flushedPosition = buffer.position();
+        }
+        deleteExpiredSegments(now);
+
+        flusher.scheduleWithFixedDelay(
+                this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info(
+                "Revocation journal opened at {} ({} closed segments, {} active revocations loaded)",
+                directory,
+                closedSegments.size(),
+                loaded[0]);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        flush();
+        channel.close();
+    }
+
+    @Override
+    public void save(String jti, Date expiryTime) {
+        UUID uuid = UUID.fromString(jti); // generateToken luon tao jti la UUID
+        long expiry = expiryTime.getTime() / 1000;
+
+        synchronized (this) {
+            if (buffer.remaining() < RECORD_SIZE) rollover();
+
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+            buffer.putLong(expiry);
+            buffer.putInt(checksum(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), expiry));
+            buffer.putInt(MAGIC);
+            segmentMaxExpiry = Math.max(segmentMaxExpiry, expiry);
+        }
+    }
+
+    // Index da duoc nap day du tu journal trong open() nen khong co gi de kiem tra them (chi dung voi 1 instance)
+    @Override
+    public boolean isRevoked(String jti) {
+        return false;
+    }
+
+    @Override
+    public boolean loadsIndexOnOpen() {
+        return true;
+    }
+
+    @Override
+    public void forEachActive(BiConsumer<String, Date> consumer) {
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            for (Path segment : listSegments()) {
+                replay(segment, (jti, expiry) -> {
+                    if (expiry > now) consumer.accept(jti.toString(), new Date(expiry * 1000));
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Group commit: fsync 1 lan cho tat ca record ghi tu lan flush truoc
+    synchronized void flush() {
+        int position = buffer.position();
+        if (position > flushedPosition) {
+            buffer.force(flushedPosition, position - flushedPosition);
+            flushedPosition = position;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+            deleteExpiredSegments(System.currentTimeMillis() / 1000);
+        } catch (RuntimeException e) {
+            log.error("Revocation journal flush failed", e);
+        }
+    }
+
+    private void rollover() {
+        flush();
+        closedSegments.add(new ClosedSegment(segmentPath, segmentMaxExpiry));
+        try {
+            channel.close();
+            openSegment(segmentSequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Xoa segment khi moi token trong do da het han
+    private synchronized void deleteExpiredSegments(long now) {
+        closedSegments.removeIf(segment -> {
+            if (segment.maxExpiry() > now) return false;
+            try {
+                Files.deleteIfExists(segment.path());
+                log.info("Deleted expired revocation journal segment {}", segment.path());
+                return true;
+            } catch (IOException e) {
+                log.warn("Could not delete revocation journal segment {}", segment.path(), e);
+                return false;
+            }
+        });
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        mapSegment(sequence, path);
+        segmentMaxExpiry = 0;
+        flushedPosition = 0;
+    }
+
+    private void mapSegment(long sequence, Path path) throws IOException {
+        segmentSequence = sequence;
+        segmentPath = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+    }
+
+    // Doc tung record cho toi record trong hoac record bi ghi do dang (sai checksum), tra ve expiry lon nhat
+    private static long replay(Path segment, BiConsumer<UUID, Long> consumer) throws IOException {
+        long maxExpiry = 0;
+        try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer readBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            while (readBuffer.remaining() >= RECORD_SIZE) {
+                long msb = readBuffer.getLong();
+                long lsb = readBuffer.getLong();
+                long expiry = readBuffer.getLong();
+                int crc = readBuffer.getInt();
+                int magic = readBuffer.getInt();
+                if (magic != MAGIC || crc != checksum(msb, lsb, expiry)) break;
+
+                consumer.accept(new UUID(msb, lsb), expiry);
+                maxExpiry = Math.max(maxExpiry, expiry);
+            }
+        }
+        return maxExpiry;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(long msb, long lsb, long expiry) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(24)
+                .putLong(msb)
+                .putLong(lsb)
+                .putLong(expiry)
+                .flip());
+        return (int) crc.getValue();
+    }
+
+    private record ClosedSegment(Path path, long maxExpiry) {}
+}
@@ -0,0 +1,81 @@
+package com.example.identity_service.revocation;
+
+import java.util.Date;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+import com.example.identity_service.repository.projection.RevokedTokenView;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+// Luu revocation vao bang InvalidatedToken, co bloom filter dung truoc de tranh SELECT
+@Component
+@ConditionalOnProperty(name = "revocation.store", havingValue = "jpa", matchIfMissing = true)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JpaRevocationStore implements RevocationStore {
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    RevokedTokenFilter revokedTokenFilter;
+    TransactionTemplate readOnlyTransaction;
+
+    public JpaRevocationStore(
+            InvalidatedTokenRepository invalidatedTokenRepository,
+            RevokedTokenFilter revokedTokenFilter,
+            PlatformTransactionManager transactionManager) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.revokedTokenFilter = revokedTokenFilter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void save(String jti, Date expiryTime) {
+        InvalidatedToken invalidatedToken = InvalidatedToken.builder()
+                .id(jti)
+                .expiryTime(expiryTime)
+                .expiryBucket(InvalidatedToken.bucketOf(expiryTime))
+                .revokedAt(new Date())
+                .build();
+        invalidatedTokenRepository.save(invalidatedToken); // Lưu vào CSDL
+        revokedTokenFilter.put(jti);
+
+        // Lan rebuild bat dau truoc khi row commit se khong doc thay row nay, nen them lai vao filter sau commit
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokedTokenFilter.put(jti);
+                }
+            });
+    }
+
+    @Override
+    public boolean isRevoked(String jti) {
+        // Bloom filter bao "khong co" thi chac chan token chua bi revoke, khong can SELECT
+        if (!revokedTokenFilter.mightBeRevoked(jti)) return false;
+
+        // Transaction readOnly: khi bat replica thi cau SELECT nay doc tu replica. Token vua logout tren node nay
+        // da co trong RevocationIndex nen khong bi anh huong boi do tre
+        boolean revoked =
+                Boolean.TRUE.equals(readOnlyTransaction.execute(status -> invalidatedTokenRepository.existsById(jti)));
+        if (!revoked) revokedTokenFilter.recordFalsePositive();
+        return revoked;
+    }
+
+    // Phai goi trong transaction vi dung Stream
+    @Override
+    public void forEachActive(BiConsumer<String, Date> consumer) {
+        try (Stream<RevokedTokenView> tokens = invalidatedTokenRepository.streamByExpiryTimeAfter(new Date())) {
+            tokens.forEach(token -> consumer.accept(token.getId(), token.getExpiryTime()));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.identity_service.revocation;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+// Tap hop cac jti (UUID) da bi revoke, luu bang mang primitive (2 long + 1 int moi slot) voi open addressing.
+// Doc khong lock (optimistic read cua StampedLock), ghi lock theo tung segment, slot het han duoc dung lai tai cho.
+public class RevocationIndex {
+    // Luu expiry duoi dang so giay tinh tu moc nay de vua 1 int (toi khoang nam 2091)
+    private static final long EPOCH_OFFSET_SECONDS = 1_700_000_000L;
+    private static final int EMPTY = 0;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    public RevocationIndex(int expectedEntries, int stripes) {
+        int segmentCount = tableSizeFor(Math.max(stripes, 1));
+        int segmentCapacity = tableSizeFor(Math.max(MIN_SEGMENT_CAPACITY, expectedEntries * 2 / segmentCount));
+
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) segments[i] = new Segment(segmentCapacity);
+        segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    public void add(UUID jti, Instant expiryTime) {
+        long hash = hash(jti);
+        segmentFor(hash)
+                .add(
+                        jti.getMostSignificantBits(),
+                        jti.getLeastSignificantBits(),
+                        (int) hash,
+                        toSeconds(expiryTime),
+                        toSeconds(Instant.now()));
+    }
+
+    // true neu jti da bi revoke va token do chua het han
+    public boolean contains(UUID jti) {
+        long hash = hash(jti);
+        return segmentFor(hash)
+                .contains(
+                        jti.getMostSignificantBits(),
+                        jti.getLeastSignificantBits(),
+                        (int) hash,
+                        toSeconds(Instant.now()));
+    }
+
+    // So slot dang bi chiem (ke ca slot da het han nhung chua duoc dung lai)
+    public long occupied() {
+        long total = 0;
+        for (Segment segment : segments) total += segment.occupied;
+        return total;
+    }
+
+    public long capacity() {
+        long total = 0;
+        for (Segment segment : segments) total += segment.table.expiry.length;
+        return total;
+    }
+
+    // Uoc luong heap cua cac mang: 8 + 8 + 4 byte moi slot
+    public long estimatedBytes() {
+        return capacity() * (Long.BYTES * 2 + Integer.BYTES);
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    private static int toSeconds(Instant time) {
+        long seconds = time.getEpochSecond() - EPOCH_OFFSET_SECONDS;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, seconds));
+    }
+
+    private static long hash(UUID jti) {
+        return hash(jti.getMostSignificantBits(), jti.getLeastSignificantBits());
+    }
+
+    private static long hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableSizeFor(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static final class Table {
+        final long[] msb;
+        final long[] lsb;
+        final int[] expiry; // 0 = slot trong
+        final int mask;
+
+        Table(int capacity) {
+            msb = new long[capacity];
+            lsb = new long[capacity];
+            expiry = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        volatile Table table;
+        volatile int occupied;
+
+        Segment(int capacity) {
+            table = new Table(capacity);
+        }
+
+        boolean contains(long msb, long lsb, int hash, int now) {
+            long stamp = lock.tryOptimisticRead();
+            boolean found = probe(table, msb, lsb, hash, now);
+            if (lock.validate(stamp)) return found;
+
+            // Co writer chen vao trong luc doc, doc lai voi read lock
+            stamp = lock.readLock();
+            try {
+                return probe(table, msb, lsb, hash, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static boolean probe(Table t, long msb, long lsb, int hash, int now) {
+            int index = hash & t.mask;
+            for (int probes = 0; probes <= t.mask; probes++) {
+                int expiry = t.expiry[index];
+                if (expiry == EMPTY) return false;
+                if (t.msb[index] == msb && t.lsb[index] == lsb) return expiry > now;
+                index = (index + 1) & t.mask;
+            }
+            return false;
+        }
+
+        void add(long msb, long lsb, int hash, int expiry, int now) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                if (occupied + 1 > (t.mask + 1) * 3 / 4) t = rehash(t, now);
+
+                int index = hash & t.mask;
+                int reusable = -1;
+                for (int probes = 0; probes <= t.mask; probes++) {
+                    int current = t.expiry[index];
+                    if (current == EMPTY) break;
+                    if (t.msb[index] == msb && t.lsb[index] == lsb) {
+                        t.expiry[index] = Math.max(current, expiry);
+                        return;
+                    }
+                    // Slot da het han: nho lai de ghi de neu khong tim thay jti trong chuoi probe
+                    if (reusable < 0 && current <= now) reusable = index;
+                    index = (index + 1) & t.mask;
+                }
+
+                if (reusable >= 0) index = reusable;
+                else occupied++;
+                t.msb[index] = msb;
+                t.lsb[index] = lsb;
+                t.expiry[index] = expiry;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // Bo cac slot het han va tang kich thuoc neu can; chi goi khi dang giu write lock
+        private Table rehash(Table old, int now) {
+            int live = 0;
+            for (int expiry : old.expiry) if (expiry > now) live++;
+
+            Table next = new Table(tableSizeFor(Math.max(MIN_SEGMENT_CAPACITY, (live + 1) * 2)));
+            for (int i = 0; i <= old.mask; i++) {
+                if (old.expiry[i] <= now) continue;
+                int index = (int) hash(old.msb[i], old.lsb[i]) & next.mask;
+                while (next.expiry[index] != EMPTY) index = (index + 1) & next.mask;
+                next.msb[index] = old.msb[i];
+                next.lsb[index] = old.lsb[i];
+                next.expiry[index] = old.expiry[i];
+            }
+
+            table = next;
+            occupied = live;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.identity_service.revocation;
+
+import java.util.Date;
+import java.util.function.BiConsumer;
+
+// Noi luu ben vung cac token da bi revoke, chon bang revocation.store (jpa | journal)
+public interface RevocationStore {
+    void save(String jti, Date expiryTime);
+
+    // Chi duoc goi khi RevocationIndex khong co jti nay
+    boolean isRevoked(String jti);
+
+    // Duyet cac token con han, dung de nap lai RevocationIndex khi khoi dong
+    void forEachActive(BiConsumer<String, Date> consumer);
+
+    // true: store tu nap RevocationIndex luc khoi tao bean, loadIndex khong can duyet lai
+    default boolean loadsIndexOnOpen() {
+        return false;
+    }
+}
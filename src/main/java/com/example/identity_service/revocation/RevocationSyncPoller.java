@@ -0,0 +1,107 @@
+package com.example.identity_service.revocation;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.identity_service.cache.VerifiedTokenCache;
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+import com.example.identity_service.repository.projection.RevokedTokenView;
+import com.example.identity_service.service.TokenRevocationService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+// Keo cac revocation moi (ke ca cua node khac) tu bang InvalidatedToken theo watermark revokedAt,
+// ap vao index/bloom filter/cache cua node nay de verifyToken khong phai hoi DB moi request
+@Component
+@ConditionalOnExpression("${revocation.sync.enabled:true} and '${revocation.store:jpa}' == 'jpa'")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class RevocationSyncPoller {
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    RevocationIndex revocationIndex;
+    RevokedTokenFilter revokedTokenFilter;
+    VerifiedTokenCache verifiedTokenCache;
+
+    long overlapMillis;
+    int batchSize;
+
+    Timer lag;
+    DistributionSummary pullSize;
+
+    // Thoi diem revoke lon nhat da thay; khoi dong tu luc tao bean vi loadIndex da nap cac row truoc do
+    @NonFinal
+    volatile long watermark = System.currentTimeMillis();
+
+    public RevocationSyncPoller(
+            InvalidatedTokenRepository invalidatedTokenRepository,
+            RevocationIndex revocationIndex,
+            RevokedTokenFilter revokedTokenFilter,
+            VerifiedTokenCache verifiedTokenCache,
+            @Value("${revocation.sync.overlap}") long overlapMillis,
+            @Value("${revocation.sync.batch-size}") int batchSize,
+            MeterRegistry meterRegistry) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.revocationIndex = revocationIndex;
+        this.revokedTokenFilter = revokedTokenFilter;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.overlapMillis = overlapMillis;
+        this.batchSize = batchSize;
+
+        // Do tre tu luc token bi revoke (tren bat ky node nao) den luc node nay biet
+        lag = Timer.builder("revocation.sync.lag").register(meterRegistry);
+        pullSize = DistributionSummary.builder("revocation.sync.pull.size").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.sync.interval}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        int applied = 0;
+        List<RevokedTokenView> rows;
+        // Cursor (revokedAt, id) cua row cuoi trang truoc, id rong = lay tu dau moc since
+        Date since = new Date(watermark - overlapMillis);
+        String id = "";
+        do {
+            rows = invalidatedTokenRepository.findRevokedAfter(since, id, PageRequest.ofSize(batchSize));
+            for (RevokedTokenView row : rows) {
+                if (apply(row)) {
+                    applied++;
+                    lag.record(Math.max(0, now - row.getRevokedAt().getTime()), TimeUnit.MILLISECONDS);
+                }
+            }
+            if (!rows.isEmpty()) {
+                RevokedTokenView last = rows.get(rows.size() - 1);
+                since = last.getRevokedAt();
+                id = last.getId();
+            }
+        } while (rows.size() == batchSize);
+
+        watermark = Math.max(watermark, since.getTime());
+        pullSize.record(applied);
+        if (applied > 0) log.debug("Applied {} revocations from other nodes", applied);
+    }
+
+    // Bo qua cac row da co trong index (revoke tai node nay hoac da ap o lan poll truoc, do cua so overlap)
+    private boolean apply(RevokedTokenView row) {
+        UUID uuid = TokenRevocationService.toUuid(row.getId());
+        if (uuid == null || revocationIndex.contains(uuid)) return false;
+
+        revocationIndex.add(uuid, row.getExpiryTime().toInstant());
+        revokedTokenFilter.put(row.getId());
+        verifiedTokenCache.invalidateJti(row.getId());
+        return true;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.identity_service.revocation;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+// Bloom filter chua jti cua cac token da logout/refresh con han. Neu filter tra ve "khong co" thi khong can hoi DB
+@Component
+@ConditionalOnProperty(name = "revocation.store", havingValue = "jpa", matchIfMissing = true)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class RevokedTokenFilter {
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    TransactionTemplate readOnlyTransaction;
+
+    long expectedInsertions;
+    double falsePositiveRate;
+
+    Counter negatives;
+    Counter positives;
+    Counter falsePositives;
+
+    // null cho toi khi build xong lan dau, luc do moi jti deu phai check DB
+    @NonFinal
+    volatile BloomFilter active;
+
+    // Filter dang duoc build lai, nhan them cac jti moi revoke trong luc build
+    @NonFinal
+    volatile BloomFilter building;
+
+    public RevokedTokenFilter(
+            InvalidatedTokenRepository invalidatedTokenRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${revocation.bloom.expected-insertions}") long expectedInsertions,
+            @Value("${revocation.bloom.false-positive-rate}") double falsePositiveRate,
+            MeterRegistry meterRegistry) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        negatives = Counter.builder("revocation.bloom.checks")
+                .tag("result", "negative")
+                .register(meterRegistry);
+        positives = Counter.builder("revocation.bloom.checks")
+                .tag("result", "positive")
+                .register(meterRegistry);
+        falsePositives = Counter.builder("revocation.bloom.false.positives").register(meterRegistry);
+
+        Gauge.builder("revocation.bloom.fill.ratio", this, f -> f.active == null ? 0 : f.active.fillRatio())
+                .register(meterRegistry);
+        Gauge.builder(
+                        "revocation.bloom.expected.false.positive.rate",
+                        this,
+                        f -> f.active == null ? 0 : f.active.expectedFalsePositiveRate())
+                .register(meterRegistry);
+        // Ti le false positive thuc te: so lan filter bao "co" nhung DB bao "khong" / so token chua bi revoke
+        Gauge.builder("revocation.bloom.false.positive.rate", this, RevokedTokenFilter::observedFalsePositiveRate)
+                .register(meterRegistry);
+    }
+
+    // Tra ve false neu chac chan jti chua bi revoke
+    public boolean mightBeRevoked(String jti) {
+        BloomFilter filter = active;
+        if (filter == null) return true;
+
+        boolean result = filter.mightContain(jti);
+        (result ? positives : negatives).increment();
+        return result;
+    }
+
+    // Filter bao "co" nhung DB khong co row tuong ung
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    // Doc building truoc active: rebuild gan active = next truoc khi xoa building, nen jti luon vao duoc filter moi
+    public void put(String jti) {
+        BloomFilter next = building;
+        if (next != null) next.put(jti);
+
+        BloomFilter filter = active;
+        if (filter != null && filter != next) filter.put(jti);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    // Bloom filter khong xoa duoc, nen build lai dinh ky de bo cac jti da het han
+    @Scheduled(
+            initialDelayString = "${revocation.bloom.rebuild-interval}",
+            fixedDelayString = "${revocation.bloom.rebuild-interval}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Date now = new Date();
+
+        long activeCount = invalidatedTokenRepository.countByExpiryTimeAfter(now);
+        BloomFilter next = new BloomFilter(Math.max(expectedInsertions, activeCount * 2), falsePositiveRate);
+        building = next;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> ids = invalidatedTokenRepository.streamIdsByExpiryTimeAfter(now)) {
+                    ids.forEach(next::put);
+                }
+            });
+            active = next;
+        } finally {
+            building = null;
+        }
+
+        log.info(
+                "Revoked token bloom filter rebuilt with {} entries in {} ms (fill ratio {})",
+                activeCount,
+                System.currentTimeMillis() - start,
+                String.format("%.4f", next.fillRatio()));
+    }
+
+    private double observedFalsePositiveRate() {
+        double fp = falsePositives.count();
+        double notRevoked = negatives.count() + fp;
+        return notRevoked == 0 ? 0 : fp / notRevoked;
+    }
+}
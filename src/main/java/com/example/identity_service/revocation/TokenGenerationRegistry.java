@@ -0,0 +1,83 @@
+package com.example.identity_service.revocation;
+
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.repository.projection.TokenVersionView;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+// Map username -> tokenVersion nho nhat con hop le. Token co claim ver nho hon la da bi "logout khoi moi thiet bi",
+// nen thu hoi toan bo token cua 1 user chi ton 1 cau UPDATE thay vi 1 row InvalidatedToken cho moi token
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class TokenGenerationRegistry {
+    public static final String VERSION_CLAIM = "ver";
+
+    UserRepository userRepository;
+
+    // Chi chua user co tokenVersion > 0, user khong co trong map thi moi token deu hop le
+    Map<String, Integer> minVersions = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${revocation.sync.enabled}")
+    boolean syncEnabled;
+
+    public boolean isSuperseded(JWTClaimsSet claims) throws ParseException {
+        Integer minVersion = minVersions.get(claims.getSubject());
+        if (minVersion == null) return false;
+
+        // Token cap truoc khi co claim ver duoc xem nhu ver = 0
+        Integer version = claims.getIntegerClaim(VERSION_CLAIM);
+        return (version == null ? 0 : version) < minVersion;
+    }
+
+    public void raise(String username, int version) {
+        minVersions.merge(username, version, Math::max);
+    }
+
+    // User bi xoa: user tao lai cung username bat dau lai tu tokenVersion 0
+    public void remove(String username) {
+        minVersions.remove(username);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        var versions = userRepository.findRaisedTokenVersions();
+        versions.forEach(view -> raise(view.getUsername(), view.getTokenVersion()));
+        log.info("Loaded token versions of {} users", versions.size());
+    }
+
+    // Khi chay nhieu node, doc lai tokenVersion de biet cac lan revoke all va cac user bi xoa tren node khac
+    @Scheduled(fixedDelayString = "${revocation.sync.interval}")
+    public void refresh() {
+        if (!syncEnabled) return;
+        Map<String, Integer> before = Map.copyOf(minVersions);
+        Set<String> raised = new HashSet<>();
+        for (TokenVersionView view : userRepository.findRaisedTokenVersions()) {
+            raise(view.getUsername(), view.getTokenVersion());
+            raised.add(view.getUsername());
+        }
+        // Chi xoa entry khong doi tu truoc khi query, entry vua raise sau commit (chua co trong ket qua) duoc giu lai
+        before.forEach((username, version) -> {
+            if (!raised.contains(username)) minVersions.remove(username, version);
+        });
+    }
+}
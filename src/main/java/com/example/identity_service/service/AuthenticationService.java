@@ -4,25 +4,30 @@ import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.cache.CredentialCache.Credential;
+import com.example.identity_service.cache.RoleScopeCache;
+import com.example.identity_service.cache.VerifiedTokenCache;
+import com.example.identity_service.datasource.ReadYourWrites;
 import com.example.identity_service.dto.request.AuthenticatonRequest;
 import com.example.identity_service.dto.request.IntrospectRequest;
 import com.example.identity_service.dto.request.LogoutRequest;
 import com.example.identity_service.dto.request.RefreshRequest;
 import com.example.identity_service.dto.response.AuthenticationResponse;
 import com.example.identity_service.dto.response.IntrospectResponse;
-import com.example.identity_service.entity.InvalidatedToken;
-import com.example.identity_service.entity.User;
 import com.example.identity_service.exception.AppException;
 import com.example.identity_service.exception.ErrorCode;
-import com.example.identity_service.repository.InvalidatedTokenRepository;
 import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.revocation.TokenGenerationRegistry;
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.MACVerifier;
@@ -41,7 +46,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AuthenticationService {
     UserRepository userRepository; // Dung cai nay de lay thong tin cua USER
-    InvalidatedTokenRepository invalidatedTokenRepository;
+    TokenRevocationService tokenRevocationService;
+    VerifiedTokenCache verifiedTokenCache;
+    RoleScopeCache roleScopeCache;
+    CredentialCache credentialCache;
+    ReadYourWrites readYourWrites;
+    PasswordHashingService passwordHashingService;
+    AsyncTaskExecutor applicationTaskExecutor;
 
     @NonFinal
     @Value("${jwt.signerKey}") // Anotation nay dung de doc gia tri tu file yaml
@@ -55,6 +66,19 @@ public class AuthenticationService {
     @Value("${jwt.refreshable-duration}")
     protected Long REFRESHABLE_DURATION;
 
+    // Signer/verifier chi can tao 1 lan, dung chung cho moi request
+    @NonFinal
+    JWSSigner signer;
+
+    @NonFinal
+    JWSVerifier verifier;
+
+    @PostConstruct
+    void initJwsCrypto() throws JOSEException {
+        signer = new MACSigner(SIGNER_KEY.getBytes());
+        verifier = new MACVerifier(SIGNER_KEY.getBytes());
+    }
+
     public IntrospectResponse introspect(IntrospectRequest request) throws JOSEException, ParseException {
         var token = request.getToken();
         boolean isValid = true;
@@ -69,8 +93,14 @@ public class AuthenticationService {
                 .build();
     }
 
-    private SignedJWT verifyToken(String token, boolean isRefresh) throws JOSEException, ParseException {
-        JWSVerifier verifier = new MACVerifier(SIGNER_KEY.getBytes());
+    // Parse + verify chu ky + check logout, dung chung cho introspect, logout, refresh va CustomJwtDecoder
+    public SignedJWT verifyToken(String token, boolean isRefresh) throws JOSEException, ParseException {
+        // Token da verify truoc do va chua bi logout thi lay lai tu cache, khong parse/verify lai
+        if (!isRefresh) {
+            SignedJWT cached = verifiedTokenCache.get(token);
+            if (cached != null && !tokenRevocationService.isSuperseded(cached.getJWTClaimsSet())) return cached;
+        }
+
         SignedJWT singedJWT = SignedJWT.parse(token);
         // Kiem tra xem token het han hay chua?
         Date expiryTime = (isRefresh)
@@ -81,53 +111,98 @@ public class AuthenticationService {
                         .plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS)
                         .toEpochMilli())
                 : singedJWT.getJWTClaimsSet().getExpirationTime();
-        var verified = singedJWT.verify(verifier);
+        // Chi chap nhan HS512 giong nhu NimbusJwtDecoder truoc day
+        var verified = JWSAlgorithm.HS512.equals(singedJWT.getHeader().getAlgorithm()) && singedJWT.verify(verifier);
 
         if (!(verified && expiryTime.after(new Date()))) // Nếu Token này không hợp lệ hoặc đã hết hạn
         throw new AppException(ErrorCode.UNAUTHENTICATED);
 
         // Kiểm tra xem token này đã logout hay chưa
-        if (invalidatedTokenRepository.existsById(singedJWT.getJWTClaimsSet().getJWTID()))
+        if (tokenRevocationService.isRevoked(singedJWT.getJWTClaimsSet().getJWTID())
+                || tokenRevocationService.isSuperseded(singedJWT.getJWTClaimsSet()))
             throw new AppException(ErrorCode.UNAUTHENTICATED); // Sẽ gây ra lỗi để lên hàm Introspect bắt lỗi
 
+        if (!isRefresh) verifiedTokenCache.put(token, singedJWT);
+
         return singedJWT; // Trả về 1 cái token
     }
 
-    public AuthenticationResponse authenticate(AuthenticatonRequest request) { // Dùng trong API Get Token
-        var user = userRepository
-                .findByUsername(request.getUsername())
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
-        boolean authenticated = passwordEncoder.matches(
-                request.getPassword(),
-                user.getPassword()); // Tham số đầu tiên là Passwoed do User nhập vào khi đăng nhập, thứ 2 là
-        // Password của Username đó và đã được lưu vào DBMS
-        if (!authenticated) {
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
+    public CompletableFuture<AuthenticationResponse> authenticate(
+            AuthenticatonRequest request) { // Dùng trong API Get Token
+        // Lay tu CredentialCache, miss thi 1 query lay user + ten role
+        Credential user = credentialCache.get(request.getUsername());
+        if (user == null) throw new AppException(ErrorCode.USER_NOT_EXISTED);
+
+        // Lay scope tren request thread truoc khi hash
+        String scope = buildScope(user);
+
+        // So sanh password tren thread pool hash, request thread duoc tra ve cho Tomcat trong luc cho
+        return passwordHashingService
+                .matches(
+                        request.getPassword(),
+                        user.password()) // Tham số đầu tiên là Passwoed do User nhập vào khi đăng nhập, thứ 2 là
+                // Password của Username đó và đã được lưu vào DBMS
+                .thenApply(authenticated -> {
+                    if (!authenticated) {
+                        throw new AppException(ErrorCode.UNAUTHENTICATED);
+                    }
+                    if (passwordHashingService.upgradeEncoding(user.password()))
+                        upgradePassword(user.id(), user.password(), request.getPassword());
+                    var token = generateToken(user, scope);
+                    return AuthenticationResponse.builder()
+                            .token(token)
+                            .authenticated(true)
+                            .build();
+                });
+    }
+
+    // Hash lai password voi cost hien tai, chay nen nen khong lam cham login.
+    // Pool hash dang day thi bo qua, lan login sau se thu lai
+    private void upgradePassword(String userId, String oldPassword, String rawPassword) {
+        try {
+            passwordHashingService
+                    .encode(rawPassword)
+                    .thenAcceptAsync(
+                            newPassword -> {
+                                if (userRepository.updatePasswordIfUnchanged(userId, oldPassword, newPassword) > 0) {
+                                    credentialCache.invalidateUser(userId);
+                                    log.info("Rehashed password of user {} with current BCrypt cost", userId);
+                                }
+                            },
+                            applicationTaskExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Could not rehash password of user {}", userId, e);
+                        return null;
+                    });
+        } catch (AppException e) {
+            log.debug("Skip password rehash of user {}, hashing pool is busy", userId);
         }
-        var token = generateToken(user);
-        return AuthenticationResponse.builder().token(token).authenticated(true).build();
     }
 
-    private String generateToken(User user) {
+    // Package-private cho TokenBenchmark (src/jmh/java)
+    String generateToken(Credential user) {
+        return generateToken(user, buildScope(user));
+    }
+
+    private String generateToken(Credential user, String scope) {
 
         JWSHeader jwsHeader = new JWSHeader(JWSAlgorithm.HS512);
         // Body
         JWTClaimsSet jwtClaimsSet = new JWTClaimsSet.Builder()
-                .subject(user.getUsername()) // Nhan biet client, thêm tên User vào trong token
+                .subject(user.username()) // Nhan biet client, thêm tên User vào trong token
                 .issuer("hosi.com") // De dinh danh ai issuer token nay
                 .issueTime(new Date()) // Thoi gian start, end token
                 .expirationTime(new Date(
                         Instant.now().plus(VALID_DURATION, ChronoUnit.SECONDS).toEpochMilli()))
                 .jwtID(UUID.randomUUID().toString()) // Random jwtID
-                .claim("scope", buildScope(user)) // Mo rong
+                .claim("scope", scope) // Mo rong
+                .claim(TokenGenerationRegistry.VERSION_CLAIM, user.tokenVersion()) // Dung cho logout-all
                 .build();
         Payload payload = new Payload(jwtClaimsSet.toJSONObject());
         JWSObject jwsObject = new JWSObject(jwsHeader, payload);
 
         try {
-            jwsObject.sign(new MACSigner(SIGNER_KEY.getBytes())); // Sign token
+            jwsObject.sign(signer); // Sign token
             return jwsObject.serialize();
         } catch (JOSEException e) {
             throw new RuntimeException(e);
@@ -135,27 +210,9 @@ public class AuthenticationService {
     }
 
     // Function nay de lay ra het cac Role cua User va gan cho User do
-    private String buildScope(User user) {
-        // USING StringJoiner TO CONNECT STRING TOGETHER
-        // HERE ROLES AND PERMISSIONS OF USER WITH SPACE AS SEPARATORS
-        StringJoiner stringJoiner = new StringJoiner(" ");
-
-        // GET ROLES AND PERMISSIONS AND BUILD LIMIT CHAIN
-        if (!CollectionUtils.isEmpty(user.getRoles())) {
-            // FOOP EACH ROLE
-            user.getRoles().forEach(role -> {
-
-                // IF USER HAVE ROLE ADD EACH ROLE TO StringJoiner WITH PREFIX ROLE_
-                stringJoiner.add("ROLE_" + role.getName());
-
-                // FOR EACH PERMISSION
-                if (!CollectionUtils.isEmpty(role.getPermissions()))
-                    // IF ROLE HAVE PERMISSIONS, ADD PERMISSION TO StringJoiner
-                    role.getPermissions().forEach(permission -> stringJoiner.add(permission.getName()));
-            });
-        }
-        // RETURN ROLES AND PERMISSION CONNECT TOGETHER
-        return stringJoiner.toString();
+    // Scope = cac doan "ROLE_<role> <permission>..." da cache san cua tung role, ten role lay tu CredentialCache
+    String buildScope(Credential user) {
+        return roleScopeCache.scopeOf(user.roleNames());
     }
 
     public void logout(LogoutRequest request) throws ParseException, JOSEException {
@@ -165,29 +222,42 @@ public class AuthenticationService {
             // Đọc các thông tin của token
             String jid = signToken.getJWTClaimsSet().getJWTID(); // Lấy ID của token
             Date expiryTime = signToken.getJWTClaimsSet().getExpirationTime(); // Lấy thời gian hết hạn của token
-            InvalidatedToken invalidatedToken =
-                    InvalidatedToken.builder().id(jid).expiryTime(expiryTime).build();
 
-            invalidatedTokenRepository.save(invalidatedToken); // Lưu vào CSDL
+            tokenRevocationService.revoke(jid, expiryTime); // Lưu vào CSDL
+            verifiedTokenCache.invalidate(request.getToken());
+            readYourWrites.pin(signToken.getJWTClaimsSet().getSubject());
         } catch (AppException e) {
             log.info("Token already exprired");
         }
     }
 
+    // Logout khoi moi thiet bi cua user so huu token nay
+    @Transactional
+    public void logoutAll(LogoutRequest request) throws ParseException, JOSEException {
+        var signToken = verifyToken(request.getToken(), true);
+        var user = userRepository
+                .findByUsername(signToken.getJWTClaimsSet().getSubject())
+                .orElseThrow(() -> new AppException(ErrorCode.UNAUTHENTICATED));
+
+        tokenRevocationService.revokeAllTokens(user);
+        readYourWrites.pin(user.getUsername());
+    }
+
+    // Revoke token cu + lay credential trong 1 transaction
+    @Transactional
     public AuthenticationResponse refreshToken(RefreshRequest request)
             throws ParseException, JOSEException { // Trả về 1 token và hiệu lực mới
         var signedJwt =
                 verifyToken(request.getToken(), true); // TRUE là mình muốn dùng hàm verifyRoken với mục đích là refresh
         var jit = signedJwt.getJWTClaimsSet().getJWTID();
         var expiryTime = signedJwt.getJWTClaimsSet().getExpirationTime();
-        InvalidatedToken invalidatedToken =
-                InvalidatedToken.builder().id(jit).expiryTime(expiryTime).build();
-        invalidatedTokenRepository.save(invalidatedToken); // Logout token cũ
+        tokenRevocationService.revoke(jit, expiryTime); // Logout token cũ
+        verifiedTokenCache.invalidate(request.getToken());
 
         var username =
                 signedJwt.getJWTClaimsSet().getSubject(); // Do ở hàm generateToken ta lưu tên Username trong subject
-        var user =
-                userRepository.findByUsername(username).orElseThrow(() -> new AppException(ErrorCode.UNAUTHENTICATED));
+        Credential user = credentialCache.get(username);
+        if (user == null) throw new AppException(ErrorCode.UNAUTHENTICATED);
 
         // GenerateToken dựa vào thông tin user
         var token = generateToken(user);
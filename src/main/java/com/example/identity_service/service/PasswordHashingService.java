@@ -0,0 +1,130 @@
+package com.example.identity_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+// Chay BCrypt tren thread pool rieng (so thread = so CPU, hang doi co gioi han) thay vi tren thread Tomcat,
+// login hang loat khong chiem het servlet thread cua cac API nhe nhu /users/myInfo.
+// Hang doi day thi tu choi ngay (503 + Retry-After) thay vi de request cho mai.
+// Import hang loat hash tren pool rieng (importThreads thread) nen khong bao gio chiem thread cua login.
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PasswordHashingService {
+    PasswordEncoder passwordEncoder;
+    ExecutorService executor;
+    ExecutorService importExecutor;
+    int importThreads;
+    Counter rejected;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Value("${password.hashing.threads}") int threads,
+            @Value("${password.hashing.queue-capacity}") int queueCapacity,
+            @Value("${password.hashing.import-threads}") int importThreads,
+            MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.importThreads = importThreads > 0 ? importThreads : Math.max(1, poolSize / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> daemonThread(r, "password-hashing-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // executor.queued: do sau hang doi, executor.idle: thoi gian task nam cho trong hang doi
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "passwordHashing");
+        AtomicInteger importThreadNumber = new AtomicInteger();
+        importExecutor = ExecutorServiceMetrics.monitor(
+                meterRegistry,
+                Executors.newFixedThreadPool(
+                        this.importThreads,
+                        r -> daemonThread(r, "password-import-" + importThreadNumber.incrementAndGet())),
+                "passwordImport");
+        rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // Hash nhieu password song song (import hang loat): chia thanh toi da importThreads phan, moi phan la 1 task
+    // tren pool import, login van co du thread va hang doi cua minh
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int slices = Math.max(1, Math.min(importThreads, rawPasswords.size()));
+        int sliceSize = (rawPasswords.size() + slices - 1) / slices;
+
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        for (int from = 0; from < rawPasswords.size(); from += sliceSize) {
+            List<? extends CharSequence> slice =
+                    rawPasswords.subList(from, Math.min(from + sliceSize, rawPasswords.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> encodeSlice(slice), importExecutor));
+        }
+
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        futures.forEach(future -> encoded.addAll(future.join()));
+        return encoded;
+    }
+
+    private List<String> encodeSlice(List<? extends CharSequence> rawPasswords) {
+        return rawPasswords.stream().map(passwordEncoder::encode).toList();
+    }
+
+    // Hash duoc tao voi cost khac cost hien tai thi can hash lai
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AppException(ErrorCode.SERVER_BUSY);
+        }
+    }
+
+    private static Thread daemonThread(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        importExecutor.shutdown();
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.identity_service.service;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.identity_service.cache.RoleScopeCache;
 import com.example.identity_service.dto.request.PermissionRequest;
+import com.example.identity_service.dto.response.AssignmentResponse;
 import com.example.identity_service.dto.response.PermissionResponse;
 import com.example.identity_service.entity.Permission;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
 import com.example.identity_service.mapper.PermissionMapper;
 import com.example.identity_service.repository.PermissionRepository;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -22,19 +33,65 @@ import lombok.extern.slf4j.Slf4j;
 public class PermissionService {
     PermissionRepository permissionRepository;
     PermissionMapper permissionMapper;
+    RoleRepository roleRepository;
+    UserRepository userRepository;
+    RoleScopeCache roleScopeCache;
 
+    @NonFinal
+    @Value("${roles.assignment.chunk-size}")
+    int chunkSize;
+
+    // Tao moi hoac sua description: UserResponse cua user co role chua permission nay doi, tang version cua ho
+    @Transactional
     public PermissionResponse create(PermissionRequest request) {
         Permission permission = permissionMapper.toPermission(request);
+        userRepository.incrementVersionsByPermissions(List.of(permission.getName()));
         permission = permissionRepository.save(permission); // Save CSDL
+        roleScopeCache.invalidate();
         return permissionMapper.toPermissionResponse(permission);
     }
 
+    @Transactional(readOnly = true)
     public List<PermissionResponse> getAll() {
         var permission = permissionRepository.findAll();
         return permission.stream().map(permissionMapper::toPermissionResponse).toList();
     }
 
+    @Transactional
     public void delete(String permission) {
+        userRepository.incrementVersionsByPermissions(List.of(permission));
         permissionRepository.deleteById(permission);
+        roleScopeCache.invalidate();
+    }
+
+    // Gan permission cho nhieu role bang INSERT ... SELECT, xoa RoleScopeCache 1 lan cho ca thao tac
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
+    public AssignmentResponse grantToRoles(String permission, Collection<String> roles) {
+        checkPermissionExists(permission);
+        int affected = 0;
+        for (List<String> chunk : RoleService.chunks(roles, chunkSize)) {
+            affected += roleRepository.grantPermission(permission, chunk);
+            userRepository.incrementVersionsByRoles(chunk);
+        }
+        if (affected > 0) roleScopeCache.invalidate();
+        return AssignmentResponse.builder().affected(affected).build();
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
+    public AssignmentResponse revokeFromRoles(String permission, Collection<String> roles) {
+        checkPermissionExists(permission);
+        int affected = 0;
+        for (List<String> chunk : RoleService.chunks(roles, chunkSize)) {
+            affected += roleRepository.revokePermission(permission, chunk);
+            userRepository.incrementVersionsByRoles(chunk);
+        }
+        if (affected > 0) roleScopeCache.invalidate();
+        return AssignmentResponse.builder().affected(affected).build();
+    }
+
+    private void checkPermissionExists(String permission) {
+        if (!permissionRepository.existsById(permission)) throw new AppException(ErrorCode.PERMISSION_NOT_EXISTED);
     }
 }
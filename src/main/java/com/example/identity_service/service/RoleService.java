@@ -1,19 +1,31 @@
 package com.example.identity_service.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.cache.RoleScopeCache;
 import com.example.identity_service.dto.request.RoleRequest;
+import com.example.identity_service.dto.response.AssignmentResponse;
 import com.example.identity_service.dto.response.RoleResponse;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
 import com.example.identity_service.mapper.RoleMapper;
 import com.example.identity_service.repository.PermissionRepository;
 import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -24,22 +36,80 @@ public class RoleService {
     RoleRepository roleRepository;
     PermissionRepository permissionRepository;
     RoleMapper roleMapper;
+    UserRepository userRepository;
+    RoleScopeCache roleScopeCache;
+    CredentialCache credentialCache;
 
+    @NonFinal
+    @Value("${roles.assignment.chunk-size}")
+    int chunkSize;
+
+    // Tao moi hoac dinh nghia lai role: user dang co role nay thi UserResponse doi, tang version cua ho
+    @Transactional
     public RoleResponse create(RoleRequest request) {
         var role = roleMapper.toRole(request);
+        userRepository.incrementVersionsByRoles(List.of(role.getName()));
 
         var permissions = permissionRepository.findAllById(request.getPermissions());
         role.setPermissions(new HashSet<>(permissions));
 
         role = roleRepository.save(role);
+        roleScopeCache.invalidate();
         return roleMapper.toRoleResponse(role);
     }
 
+    @Transactional(readOnly = true)
     public List<RoleResponse> getAll() {
-        return roleRepository.findAll().stream().map(roleMapper::toRoleResponse).toList();
+        return roleMapper.toRoleResponses(roleRepository.findAllRows());
     }
 
+    @Transactional
     public void delete(String role) {
+        userRepository.incrementVersionsByRoles(List.of(role));
         roleRepository.deleteById(role);
+        roleScopeCache.invalidate();
+        credentialCache.invalidateAll();
+    }
+
+    // Gan role cho nhieu user: INSERT ... SELECT theo tung lo id, tat ca trong 1 transaction
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
+    public AssignmentResponse grantToUsers(String role, Collection<String> userIds) {
+        checkRoleExists(role);
+        int affected = 0;
+        for (List<String> chunk : chunks(userIds, chunkSize)) {
+            affected += userRepository.grantRole(role, chunk);
+            userRepository.incrementVersions(chunk);
+        }
+        if (affected > 0) credentialCache.invalidateAll();
+        log.info("Granted role {} to {} users", role, affected);
+        return AssignmentResponse.builder().affected(affected).build();
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
+    public AssignmentResponse revokeFromUsers(String role, Collection<String> userIds) {
+        checkRoleExists(role);
+        int affected = 0;
+        for (List<String> chunk : chunks(userIds, chunkSize)) {
+            affected += userRepository.revokeRole(role, chunk);
+            userRepository.incrementVersions(chunk);
+        }
+        if (affected > 0) credentialCache.invalidateAll();
+        log.info("Revoked role {} from {} users", role, affected);
+        return AssignmentResponse.builder().affected(affected).build();
+    }
+
+    private void checkRoleExists(String role) {
+        if (!roleRepository.existsById(role)) throw new AppException(ErrorCode.ROLE_NOT_EXISTED);
+    }
+
+    // Chia danh sach id thanh cac lo, tranh menh de IN qua dai
+    static List<List<String>> chunks(Collection<String> ids, int chunkSize) {
+        List<String> list = ids == null ? List.of() : new ArrayList<>(ids);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize)
+            chunks.add(list.subList(from, Math.min(from + chunkSize, list.size())));
+        return chunks;
     }
 }
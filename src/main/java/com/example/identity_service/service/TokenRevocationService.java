@@ -0,0 +1,132 @@
+package com.example.identity_service.service;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.revocation.RevocationIndex;
+import com.example.identity_service.revocation.RevocationStore;
+import com.example.identity_service.revocation.TokenGenerationRegistry;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+// Quan ly cac token da bi thu hoi (logout/refresh): RevocationStore (DB hoac journal) la noi luu chinh,
+// RevocationIndex trong bo nho duoc hoi truoc
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class TokenRevocationService {
+    RevocationStore revocationStore;
+    RevocationIndex revocationIndex;
+    TokenGenerationRegistry tokenGenerationRegistry;
+    UserRepository userRepository;
+    CredentialCache credentialCache;
+
+    // Khi bat dong bo giua cac node, index da co ca revocation cua node khac (tre toi da 1 chu ky poll)
+    @NonFinal
+    @Value("${revocation.sync.enabled}")
+    boolean indexSynced;
+
+    @NonFinal
+    volatile boolean indexLoaded;
+
+    public void revoke(String jti, Date expiryTime) {
+        revocationStore.save(jti, expiryTime);
+
+        UUID uuid = toUuid(jti);
+        if (uuid != null) revocationIndex.add(uuid, expiryTime.toInstant());
+    }
+
+    public boolean isRevoked(String jti) {
+        // Co trong index thi chac chan da bi revoke, khong can hoi DB
+        UUID uuid = toUuid(jti);
+        if (uuid != null && revocationIndex.contains(uuid)) return true;
+        if (uuid != null && indexSynced && indexLoaded) return false;
+
+        return revocationStore.isRevoked(jti);
+    }
+
+    // Token duoc cap truoc lan revoke all gan nhat cua user
+    public boolean isSuperseded(JWTClaimsSet claims) throws ParseException {
+        return tokenGenerationRegistry.isSuperseded(claims);
+    }
+
+    // Logout khoi moi thiet bi: tang tokenVersion cua user, moi token cu deu het hieu luc ma khong can biet jti
+    @Transactional
+    public void revokeAllTokens(User user) {
+        userRepository.incrementTokenVersion(user.getId());
+        int version = userRepository
+                .findTokenVersionById(user.getId())
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        // Commit loi thi token cu van hop le, nen chi ap vao registry sau khi commit
+        afterCommit(() -> tokenGenerationRegistry.raise(user.getUsername(), version));
+        credentialCache.invalidateUser(user.getId()); // Token moi phai mang tokenVersion moi
+        log.info("Revoked all tokens of user {} (token version {})", user.getUsername(), version);
+    }
+
+    // Goi khi xoa user, node khac bo entry nay o lan TokenGenerationRegistry.refresh tiep theo
+    public void forgetUser(String username) {
+        afterCommit(() -> tokenGenerationRegistry.remove(username));
+    }
+
+    // Nap lai cac token con han tu DB vao index khi app khoi dong (journal da tu nap trong open())
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIndex() {
+        long start = System.currentTimeMillis();
+        long[] count = new long[1];
+        if (!revocationStore.loadsIndexOnOpen())
+            revocationStore.forEachActive((jti, expiryTime) -> {
+                UUID uuid = toUuid(jti);
+                if (uuid == null) return;
+                revocationIndex.add(uuid, expiryTime.toInstant());
+                count[0]++;
+            });
+        indexLoaded = true;
+        log.info(
+                "Loaded {} revoked tokens into revocation index in {} ms",
+                count[0],
+                System.currentTimeMillis() - start);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // jti do generateToken tao ra luon la UUID, token ngoai le thi bo qua index va di duong bloom filter/DB
+    public static UUID toUuid(String jti) {
+        try {
+            return jti == null ? null : UUID.fromString(jti);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
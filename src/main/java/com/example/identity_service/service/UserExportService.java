@@ -0,0 +1,92 @@
+package com.example.identity_service.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.identity_service.dto.response.UserExportResponse;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.repository.projection.UserExportView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+// Export toan bo user ra NDJSON (1 user / dong), doc tu result set forward-only va ghi thang ra response,
+// bo nho khong tang theo so user. Dong sau cung nhan duoc la cursor de export tiep khi bi dut ket noi
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class UserExportService {
+    UserRepository userRepository;
+    ObjectMapper objectMapper;
+    TransactionTemplate readOnlyTransaction;
+    int flushEvery;
+
+    public UserExportService(
+            UserRepository userRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${users.export.flush-every}") int flushEvery) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.flushEvery = flushEvery;
+    }
+
+    // after = id cua user cuoi cung client da nhan, null thi export tu dau
+    @PreAuthorize("hasRole('ADMIN')")
+    public StreamingResponseBody exportUsers(String after) {
+        // Chay tren thread async cua MVC, connection giu trong transaction cho toi khi ghi xong
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UserExportView> rows = userRepository.streamForExport(after == null ? "" : after)) {
+                long count = write(rows.iterator(), out);
+                log.info("Exported {} users after '{}'", count, after);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Cac row cua cung 1 user nam lien nhau (order by id), gom lai thanh 1 dong
+    private long write(Iterator<UserExportView> rows, OutputStream out) throws IOException {
+        long count = 0;
+        UserExportResponse current = null;
+        while (rows.hasNext()) {
+            UserExportView row = rows.next();
+            if (current == null || !current.getId().equals(row.getId())) {
+                if (current != null && writeLine(current, out, ++count)) out.flush();
+                current = UserExportResponse.builder()
+                        .id(row.getId())
+                        .username(row.getUsername())
+                        .firstName(row.getFirstName())
+                        .lastName(row.getLastName())
+                        .dob(row.getDob())
+                        .roles(new ArrayList<>())
+                        .build();
+            }
+            if (row.getRole() != null) current.getRoles().add(row.getRole());
+        }
+        if (current != null) writeLine(current, out, ++count);
+        out.flush();
+        return count;
+    }
+
+    private boolean writeLine(UserExportResponse user, OutputStream out, long count) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(user));
+        out.write('\n');
+        return count % flushEvery == 0; // Day du lieu xuong client theo tung lo
+    }
+}
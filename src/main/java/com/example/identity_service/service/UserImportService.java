@@ -0,0 +1,339 @@
+package com.example.identity_service.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.identity_service.dto.request.UserCreationRequest;
+import com.example.identity_service.dto.response.UserImportError;
+import com.example.identity_service.dto.response.UserImportResponse;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.mapper.UserMapper;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+// Import hang loat user tu JSON array hoac CSV, doc tung dong tu request body va xu ly theo lo:
+// validate truoc, check trung username bang 1 query cho ca lo, hash song song, insert bang JDBC batch
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class UserImportService {
+    private static final String MIN_ATTRIBUTE = "min";
+
+    UserRepository userRepository;
+    RoleRepository roleRepository;
+    UserMapper userMapper;
+    PasswordHashingService passwordHashingService;
+    Validator validator;
+    ObjectMapper objectMapper;
+    EntityManager entityManager;
+    TransactionTemplate transactionTemplate;
+
+    int batchSize;
+    int maxReportedErrors;
+
+    public UserImportService(
+            UserRepository userRepository,
+            RoleRepository roleRepository,
+            UserMapper userMapper,
+            PasswordHashingService passwordHashingService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${users.import.batch-size}") int batchSize,
+            @Value("${users.import.max-reported-errors}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.userMapper = userMapper;
+        this.passwordHashingService = passwordHashingService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    // Body la JSON array cua UserCreationRequest, doc tung phan tu bang streaming parser.
+    // Phan tu sai kieu (dob sai format, khong phai object...) la loi cua dong do; JSON hong thi khong doc tiep duoc,
+    // ghi loi cho dong hien tai va van import cac dong da doc
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserImportResponse importJson(InputStream body) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) throw new IOException("Expected a JSON array of users");
+
+            Importer importer = new Importer();
+            long row = 0;
+            while (true) {
+                JsonNode element;
+                try {
+                    if (parser.nextToken() == JsonToken.END_ARRAY) break;
+                    element = objectMapper.readTree(parser);
+                } catch (JsonProcessingException e) {
+                    importer.add(new ImportRow(++row, new UserCreationRequest(), ErrorCode.INVALID_KEY));
+                    break;
+                }
+                importer.add(toRow(++row, element));
+            }
+            return importer.finish();
+        }
+    }
+
+    private ImportRow toRow(long row, JsonNode element) {
+        try {
+            if (element.isObject())
+                return new ImportRow(row, objectMapper.treeToValue(element, UserCreationRequest.class), null);
+        } catch (JsonProcessingException e) {
+            // Sai kieu du lieu, bao loi theo username neu doc duoc
+        }
+        JsonNode username = element.path("username");
+        UserCreationRequest request = UserCreationRequest.builder()
+                .username(username.isTextual() ? username.asText() : null)
+                .build();
+        return new ImportRow(row, request, ErrorCode.INVALID_KEY);
+    }
+
+    // Body la CSV co header, cac cot: username,password,firstName,lastName,dob (yyyy-MM-dd)
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserImportResponse importCsv(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) throw new IOException("Missing CSV header");
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) columns.put(names.get(i).trim().toLowerCase(), i);
+
+        Importer importer = new Importer();
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            List<String> values = parseCsvLine(line);
+            UserCreationRequest request = UserCreationRequest.builder()
+                    .username(column(values, columns, "username"))
+                    .password(column(values, columns, "password"))
+                    .firstName(column(values, columns, "firstname"))
+                    .lastName(column(values, columns, "lastname"))
+                    .build();
+            ErrorCode parseError = null;
+            try {
+                String dob = column(values, columns, "dob");
+                if (dob != null) request.setDob(LocalDate.parse(dob));
+            } catch (DateTimeParseException e) {
+                parseError = ErrorCode.INVALID_KEY;
+            }
+            importer.add(new ImportRow(++row, request, parseError));
+        }
+        return importer.finish();
+    }
+
+    // Gom cac dong thanh lo batchSize, xu ly xong lo nao thi bo lo do khoi bo nho
+    private class Importer {
+        final long start = System.nanoTime();
+        final Role defaultRole =
+                roleRepository.findById("USER").orElseThrow(() -> new RuntimeException("Role not found"));
+        final Set<String> seenUsernames = new HashSet<>(); // Trung username ngay trong file import
+        final List<UserImportError> errors = new ArrayList<>();
+        List<ImportRow> batch = new ArrayList<>();
+        long total;
+        long imported;
+        long failed;
+
+        void add(ImportRow row) {
+            total++;
+            batch.add(row);
+            if (batch.size() >= batchSize) flush();
+        }
+
+        UserImportResponse finish() {
+            flush();
+            long durationMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            double rowsPerSecond = imported * 1000.0 / durationMillis;
+            log.info(
+                    "Imported {}/{} users in {} ms ({} rows/s), {} failed",
+                    imported,
+                    total,
+                    durationMillis,
+                    String.format("%.1f", rowsPerSecond),
+                    failed);
+            return UserImportResponse.builder()
+                    .total(total)
+                    .imported(imported)
+                    .failed(failed)
+                    .durationMillis(durationMillis)
+                    .rowsPerSecond(rowsPerSecond)
+                    .errors(errors)
+                    .build();
+        }
+
+        void flush() {
+            if (batch.isEmpty()) return;
+            List<ImportRow> rows = batch;
+            batch = new ArrayList<>();
+
+            // 1. Validate (Size, DobConstraint) va trung username trong file
+            List<ImportRow> valid = new ArrayList<>();
+            for (ImportRow row : rows) {
+                String error = row.parseError() != null ? row.parseError().name() : validate(row.request());
+                if (error == null && !seenUsernames.add(row.request().getUsername()))
+                    error = ErrorCode.USER_EXISTED.name();
+                if (error == null) valid.add(row);
+                else reject(row, error);
+            }
+
+            // 2. Trung username da co trong DB: 1 query cho ca lo
+            Set<String> existing = userRepository.findExistingUsernames(
+                    valid.stream().map(row -> row.request().getUsername()).toList());
+            List<ImportRow> accepted = new ArrayList<>();
+            for (ImportRow row : valid) {
+                if (existing.contains(row.request().getUsername())) reject(row, ErrorCode.USER_EXISTED.name());
+                else accepted.add(row);
+            }
+            if (accepted.isEmpty()) return;
+
+            // 3. Hash song song tren pool hash
+            List<String> passwords = passwordHashingService.encodeAll(
+                    accepted.stream().map(row -> row.request().getPassword()).toList());
+
+            // 4. Insert user + user_roles bang JDBC batch (hibernate.jdbc.batch_size), clear persistence context
+            List<User> users = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) users.add(toUser(accepted.get(i), passwords.get(i)));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.saveAllAndFlush(users);
+                    entityManager.clear();
+                });
+                imported += users.size();
+            } catch (DataIntegrityViolationException e) {
+                // Username vua duoc tao giua buoc 2 va buoc 4 (request khac cung luc): ca lo rollback,
+                // insert lai tung dong de chi dong trung bi loi
+                log.debug("Import batch rolled back, retrying row by row", e);
+                for (int i = 0; i < accepted.size(); i++) insertOne(accepted.get(i), passwords.get(i));
+            }
+        }
+
+        void insertOne(ImportRow row, String password) {
+            User user = toUser(row, password); // Entity cua lo da rollback con id cu, tao moi
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.saveAndFlush(user);
+                    entityManager.clear();
+                });
+                imported++;
+            } catch (DataIntegrityViolationException e) {
+                reject(row, ErrorCode.USER_EXISTED.name());
+            }
+        }
+
+        User toUser(ImportRow row, String password) {
+            User user = userMapper.toUser(row.request());
+            user.setPassword(password);
+            user.setRoles(new HashSet<>(Set.of(defaultRole)));
+            return user;
+        }
+
+        void reject(ImportRow row, String errorKey) {
+            failed++;
+            if (errors.size() >= maxReportedErrors) return;
+
+            ErrorCode errorCode = ErrorCode.INVALID_KEY;
+            try {
+                errorCode = ErrorCode.valueOf(errorKey);
+            } catch (IllegalArgumentException e) {
+                // Message cua constraint khong phai ErrorCode, giu INVALID_KEY
+            }
+            errors.add(UserImportError.builder()
+                    .row(row.row())
+                    .username(row.request().getUsername())
+                    .code(errorCode.getCode())
+                    .message(errorMessage(errorCode, row.request()))
+                    .build());
+        }
+    }
+
+    // Tra ve ten ErrorCode cua vi pham dau tien (giong GlobalExceptionHandler), null neu hop le.
+    // @Size cho qua gia tri null nen thieu username/password phai check rieng
+    private String validate(UserCreationRequest request) {
+        if (request.getUsername() == null || request.getUsername().isBlank()) return ErrorCode.USERNAME_INVALID.name();
+        if (request.getPassword() == null || request.getPassword().isBlank()) return ErrorCode.PASSWORD_INVALID.name();
+        Set<ConstraintViolation<UserCreationRequest>> violations = validator.validate(request);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    // Thay {min} trong message bang gia tri cua constraint (chi INVALID_DOB co)
+    private String errorMessage(ErrorCode errorCode, UserCreationRequest request) {
+        if (!errorCode.getMessage().contains("{" + MIN_ATTRIBUTE + "}")) return errorCode.getMessage();
+        for (ConstraintViolation<UserCreationRequest> violation : validator.validate(request)) {
+            Object min = violation.getConstraintDescriptor().getAttributes().get(MIN_ATTRIBUTE);
+            if (errorCode.name().equals(violation.getMessage()) && min != null)
+                return errorCode.getMessage().replace("{" + MIN_ATTRIBUTE + "}", String.valueOf(min));
+        }
+        return errorCode.getMessage();
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) return null;
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Tach 1 dong CSV, ho tro gia tri trong dau "..." (co the chua dau phay, "" la 1 dau ")
+    public static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') quoted = false;
+                else value.append(c);
+            } else if (c == '"') quoted = true;
+            else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else value.append(c);
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private record ImportRow(long row, UserCreationRequest request, ErrorCode parseError) {}
+}
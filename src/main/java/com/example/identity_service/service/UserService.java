@@ -1,29 +1,54 @@
 package com.example.identity_service.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.cache.UserResponseCache;
+import com.example.identity_service.datasource.ReadYourWrites;
 import com.example.identity_service.dto.request.UserCreationRequest;
+import com.example.identity_service.dto.request.UserSearchRequest;
 import com.example.identity_service.dto.request.UserUpdateRequest;
+import com.example.identity_service.dto.response.CursorPage;
 import com.example.identity_service.dto.response.UserResponse;
 import com.example.identity_service.entity.Role;
 import com.example.identity_service.entity.User;
 import com.example.identity_service.exception.AppException;
 import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.mapper.RoleMapper;
 import com.example.identity_service.mapper.UserMapper;
 import com.example.identity_service.repository.RoleRepository;
 import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.repository.UserSpecifications;
+import com.example.identity_service.repository.projection.UserPageKey;
+import com.example.identity_service.repository.projection.UserRowView;
+import com.example.identity_service.repository.projection.UserVersionView;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -35,48 +60,207 @@ public class UserService {
 
     UserRepository userRepository;
     UserMapper userMapper;
-    PasswordEncoder passwordEncoder;
+    RoleMapper roleMapper;
+    PasswordHashingService passwordHashingService;
+    TokenRevocationService tokenRevocationService;
+    CredentialCache credentialCache;
+    UserResponseCache userResponseCache;
+    ReadYourWrites readYourWrites;
+
+    // Executor mac dinh cua Spring Boot, dung de luu DB sau khi hash xong de khong giu thread hash khi cho I/O
+    AsyncTaskExecutor applicationTaskExecutor;
+    TransactionTemplate transactionTemplate;
+
+    @NonFinal
+    @Value("${users.page.default-size}")
+    int defaultPageSize;
+
+    @NonFinal
+    @Value("${users.page.max-size}")
+    int maxPageSize;
 
     //    Function Create a User into SQL
-    public UserResponse createUser(UserCreationRequest request) {
+    // Hash ngoai transaction, lay role mac dinh + INSERT trong 1 transaction (1 connection)
+    public CompletableFuture<UserResponse> createUser(UserCreationRequest request) {
         log.info("Service: Create User");
 
-        if (userRepository.existsByUsername(request.getUsername())) throw new AppException(ErrorCode.USER_EXISTED);
         User user = userMapper.toUser(request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-
-        Role roleDefault = roleRepository.findById("USER").orElseThrow(() -> new RuntimeException("Role not found"));
 
-        Set<Role> roles = new HashSet<>();
-        roles.add(roleDefault);
+        return passwordHashingService
+                .encode(request.getPassword())
+                .thenApplyAsync(
+                        password -> {
+                            user.setPassword(password);
+                            try {
+                                return transactionTemplate.execute(status -> {
+                                    Role roleDefault = roleRepository
+                                            .findWithPermissionsByName("USER")
+                                            .orElseThrow(() -> new RuntimeException("Role not found"));
 
-        user.setRoles(roles);
+                                    Set<Role> roles = new HashSet<>();
+                                    roles.add(roleDefault);
 
-        return userMapper.toUserResponse(userRepository.save(user));
+                                    user.setRoles(roles);
+                                    return userMapper.toUserResponse(userRepository.save(user));
+                                });
+                            } catch (DataIntegrityViolationException e) {
+                                // Unique uk_user_username: trung username chi biet khi INSERT, khong query truoc
+                                throw new AppException(ErrorCode.USER_EXISTED);
+                            }
+                        },
+                        applicationTaskExecutor);
     }
 
     //    Update thi minh lay dto request Create cung duoc, nhung thong thuong thi khong Update usernName nen tao 1 cai
     //    giong nhu create nhung khong co userName
-    public UserResponse updateUser(String userId, UserUpdateRequest request) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+    public CompletableFuture<UserResponse> updateUser(String userId, UserUpdateRequest request) {
+        String writer = ReadYourWrites.currentUsername(); // Lay truoc khi sang thread khac
+
+        // Khong gui password thi giu password cu, khong hash
+        if (request.getPassword() == null)
+            return CompletableFuture.completedFuture(applyUpdate(userId, request, null, writer));
 
-        userMapper.updateUser(user, request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        return passwordHashingService
+                .encode(request.getPassword())
+                .thenApplyAsync(password -> applyUpdate(userId, request, password, writer), applicationTaskExecutor);
+    }
 
-        return userMapper.toUserResponse(userRepository.save(user));
+    // Load + sua + UPDATE trong 1 transaction, khong giu transaction trong luc hash
+    private UserResponse applyUpdate(String userId, UserUpdateRequest request, String password, String writer) {
+        UserResponse response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                User user = userRepository
+                        .findWithRolesById(userId)
+                        .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+                userMapper.updateUser(user, request);
+                if (password != null) user.setPassword(password);
+                userRepository.flush(); // Lay version moi cho response
+                return userMapper.toUserResponse(user);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // User bi sua dong thoi (vd: gan role hang loat)
+            throw new AppException(ErrorCode.USER_MODIFIED);
+        }
+        credentialCache.invalidateUser(userId);
+        userResponseCache.invalidateUser(userId);
+        readYourWrites.pin(writer);
+        return response;
     }
 
+    // Chi doi cac field co trong request. Chi hash khi co password moi, load + sua trong 1 transaction
+    // de dirty checking + @DynamicUpdate chi UPDATE cac cot thay doi
+    public CompletableFuture<UserResponse> patchUser(String userId, UserUpdateRequest request) {
+        String writer = ReadYourWrites.currentUsername();
+        if (request.getPassword() == null)
+            return CompletableFuture.completedFuture(applyPatch(userId, request, null, writer));
+
+        return passwordHashingService
+                .encode(request.getPassword())
+                .thenApplyAsync(password -> applyPatch(userId, request, password, writer), applicationTaskExecutor);
+    }
+
+    private UserResponse applyPatch(String userId, UserUpdateRequest request, String password, String writer) {
+        UserResponse response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                User user =
+                        userRepository.findById(userId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+                userMapper.patchUser(user, request);
+                if (password != null) user.setPassword(password);
+                // Query projection se flush UPDATE truoc, response co version moi
+                return toUserResponses(userRepository.findRowsByIdIn(List.of(userId)))
+                        .get(userId);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw new AppException(ErrorCode.USER_MODIFIED);
+        }
+        if (password != null) credentialCache.invalidateUser(userId);
+        userResponseCache.invalidateUser(userId);
+        readYourWrites.pin(writer);
+        return response;
+    }
+
+    @Transactional
     public void deleteUser(String userId) {
-        userRepository.deleteById(userId);
+        userRepository.findById(userId).ifPresent(user -> {
+            userRepository.delete(user);
+            tokenRevocationService.forgetUser(user.getUsername());
+        });
+        credentialCache.invalidateUser(userId);
+        userResponseCache.invalidateUser(userId);
+    }
+
+    // ADMIN thu hoi moi token cua 1 user (vd: tai khoan bi lo mat khau)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
+    public void revokeTokens(String userId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        tokenRevocationService.revokeAllTokens(user);
     }
 
     //    Function get User
     @PreAuthorize(
             "hasRole('ADMIN')") // Tao ra 1 proxy truoc cai ham nay, truoc khi goi ham nay thi phai kiem tra xem co phai
     // Role ADMIN khong?
-    public List<UserResponse> getUsers() {
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponse> getUsers(UserSearchRequest request) {
         log.info("In method gerUsers");
-        return userRepository.findAll().stream().map(userMapper::toUserResponse).toList();
+        int size = request.getSize() == null ? defaultPageSize : Math.max(1, Math.min(request.getSize(), maxPageSize));
+
+        // Keyset: WHERE (username, id) > cursor ORDER BY username, id LIMIT size, trang sau nhanh nhu trang dau
+        Specification<User> filter = Specification.where(UserSpecifications.usernameStartsWith(request.getUsername()))
+                .and(UserSpecifications.hasRole(request.getRole()))
+                .and(UserSpecifications.dobBetween(request.getDobFrom(), request.getDobTo()));
+        List<UserPageKey> keys = userRepository.findPageKeys(filter, decodeCursor(request.getCursor()), size + 1);
+        boolean hasNext = keys.size() > size;
+        if (hasNext) keys = keys.subList(0, size);
+        if (keys.isEmpty())
+            return CursorPage.<UserResponse>builder().items(List.of()).build();
+
+        // Cot cua UserResponse + roles cua ca trang bang 1 query, giu nguyen thu tu cua trang
+        Map<String, UserResponse> responses = toUserResponses(
+                userRepository.findRowsByIdIn(keys.stream().map(UserPageKey::id).toList()));
+        List<UserResponse> items = keys.stream()
+                .map(key -> responses.get(key.id()))
+                .filter(Objects::nonNull)
+                .toList();
+
+        return CursorPage.<UserResponse>builder()
+                .items(items)
+                .next(hasNext ? encodeCursor(keys.get(keys.size() - 1)) : null)
+                .build();
+    }
+
+    // Gom cac row (user, role, permission) thanh UserResponse theo id
+    private Map<String, UserResponse> toUserResponses(List<UserRowView> rows) {
+        Map<String, List<UserRowView>> rowsByUser = rows.stream()
+                .collect(Collectors.groupingBy(UserRowView::getId, LinkedHashMap::new, Collectors.toList()));
+        Map<String, UserResponse> responses = new HashMap<>();
+        rowsByUser.forEach((id, userRows) -> {
+            UserResponse user = userMapper.toUserResponse(userRows.get(0));
+            user.setRoles(new HashSet<>(roleMapper.toRoleResponses(userRows)));
+            responses.put(id, user);
+        });
+        return responses;
+    }
+
+    // Cursor = base64url("<id>:<username>") cua user cuoi trang truoc, id la UUID nen khong chua ':'
+    private static String encodeCursor(UserPageKey key) {
+        String value = key.id() + ":" + key.username();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UserPageKey decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            if (separator < 0) throw new AppException(ErrorCode.INVALID_CURSOR);
+            return new UserPageKey(value.substring(0, separator), value.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
     }
 
     //    Funciton get User by ID
@@ -84,18 +268,31 @@ public class UserService {
             "returnObject.username == authentication.name") // Goi method truoc va sau do kiem tra xem co phai Role mong
     // muon hay khong moi tra ket qua?, authentication.name la
     // USER hien tai
+    @Transactional(readOnly = true)
     public UserResponse getUser(String id) {
         log.info("In method gerUsersByID");
-        return userMapper.toUserResponse(userRepository
-                .findById(id)
+        return cachedUserResponse(userRepository
+                .findVersionById(id)
                 . // Nếu tìm thấy thì trả về
                 orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED))); // Còn không tìm thấy thì báo lỗi
     }
 
+    @Transactional(readOnly = true)
     public UserResponse getMyInfo() {
         var context = SecurityContextHolder.getContext(); // Get User hien tai
         String name = context.getAuthentication().getName(); // Username cua User dang nhap hien tai
-        User user = userRepository.findByUsername(name).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-        return userMapper.toUserResponse(user);
+        return cachedUserResponse(userRepository
+                .findVersionByUsername(name)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED)));
+    }
+
+    // Chi query version; version chua doi thi lay UserResponse tu cache, neu khong thi 1 query projection
+    private UserResponse cachedUserResponse(UserVersionView current) {
+        return userResponseCache.get(current.getUsername(), current.getVersion(), () -> {
+            UserResponse user = toUserResponses(userRepository.findRowsByIdIn(List.of(current.getId())))
+                    .get(current.getId());
+            if (user == null) throw new AppException(ErrorCode.USER_NOT_EXISTED);
+            return user;
+        });
     }
 }
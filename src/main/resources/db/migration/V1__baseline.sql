@@ -0,0 +1,46 @@
+-- Schema dang chay truoc khi co migration (truoc day tao bang ddl-auto: update).
+-- Database da co schema nay duoc Flyway baseline o V1 (spring.flyway.baseline-on-migrate), nen V1 khong duoc sua;
+-- cot/index moi them bang script V2 tro di
+create table permission (
+    name varchar(255) not null,
+    description varchar(255),
+    primary key (name)
+);
+
+create table role (
+    name varchar(255) not null,
+    description varchar(255),
+    primary key (name)
+);
+
+create table role_permissions (
+    role_name varchar(255) not null,
+    permissions_name varchar(255) not null,
+    primary key (permissions_name, role_name),
+    constraint fk_role_permissions_role foreign key (role_name) references role (name),
+    constraint fk_role_permissions_permission foreign key (permissions_name) references permission (name)
+);
+
+create table user (
+    id varchar(255) not null,
+    username varchar(255),
+    password varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    dob date,
+    primary key (id)
+);
+
+create table user_roles (
+    user_id varchar(255) not null,
+    roles_name varchar(255) not null,
+    primary key (roles_name, user_id),
+    constraint fk_user_roles_user foreign key (user_id) references user (id),
+    constraint fk_user_roles_role foreign key (roles_name) references role (name)
+);
+
+create table invalidated_token (
+    id varchar(255) not null,
+    expiry_time datetime(6),
+    primary key (id)
+);
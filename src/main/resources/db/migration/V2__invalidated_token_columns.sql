@@ -0,0 +1,6 @@
+-- MySQL tu commit sau moi lenh DDL, script co nhieu lenh ma loi giua chung thi khong rollback duoc.
+-- Vi vay moi script tu day chi co 1 lenh.
+
+-- expiry_bucket: xoa token het han theo bucket 1 gio. Row cu co expiry_bucket = 0, reaper van check them expiry_time.
+-- revoked_at: watermark cua revocation sync. Row cu de null, moi node da load chung luc khoi dong
+alter table invalidated_token add column (expiry_bucket bigint default 0 not null, revoked_at datetime(6));
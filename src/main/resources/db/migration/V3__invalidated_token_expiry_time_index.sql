@@ -0,0 +1 @@
+create index idx_invalidated_token_expiry_time on invalidated_token (expiry_time);
@@ -0,0 +1,2 @@
+-- Cac node keo revocation moi theo cursor (revoked_at, id)
+create index idx_invalidated_token_revoked_at on invalidated_token (revoked_at, id);
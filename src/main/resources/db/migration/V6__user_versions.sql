@@ -0,0 +1,2 @@
+-- token_version: tang len de revoke tat ca token cua user. version: optimistic lock + key cache/ETag cua profile
+alter table user add column (token_version integer default 0 not null, version bigint default 0 not null);
@@ -0,0 +1,4 @@
+-- Signup chi can 1 INSERT: username unique thay cho query existsByUsername truoc khi insert.
+-- Database cu co username trung thi phai xu ly tay truoc khi chay migration nay.
+-- Index unique (username) cua InnoDB da kem id (primary key), du cho findByUsername va keyset (username, id)
+alter table user add constraint uk_user_username unique (username);
@@ -0,0 +1,2 @@
+-- Loc GET /users theo khoang ngay sinh
+create index idx_user_dob on user (dob);
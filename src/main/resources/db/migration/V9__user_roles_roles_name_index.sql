@@ -0,0 +1,2 @@
+-- Chieu user -> roles dung index cua foreign key fk_user_roles_user (MySQL/H2 tu tao)
+create index idx_user_roles_roles_name on user_roles (roles_name);
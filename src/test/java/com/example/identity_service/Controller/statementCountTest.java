@@ -0,0 +1,299 @@
+package com.example.identity_service.Controller;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.PermissionRepository;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// So cau SQL cua cac API chinh khong duoc tang theo so user/role (bat loi N+1 khi fetch lazy)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class statementCountTest {
+    private static final int USERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private String adminToken;
+
+    @BeforeEach
+    void initData() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (userRepository.existsByUsername("counter-admin")) {
+            adminToken = token("counter-admin");
+            return;
+        }
+
+        Set<Permission> permissions = new HashSet<>();
+        for (int i = 0; i < 3; i++)
+            permissions.add(permissionRepository.save(
+                    Permission.builder().name("COUNT_" + i).build()));
+        Role admin = roleRepository.save(
+                Role.builder().name("ADMIN").permissions(permissions).build());
+        Role user = roleRepository.save(
+                Role.builder().name("COUNT_USER").permissions(permissions).build());
+
+        String password = passwordEncoder.encode("1234567890");
+        userRepository.save(User.builder()
+                .username("counter-admin")
+                .password(password)
+                .roles(Set.of(admin, user))
+                .build());
+        for (int i = 0; i < USERS; i++)
+            userRepository.save(User.builder()
+                    .username("counter-" + i)
+                    .password(password)
+                    .roles(Set.of(user))
+                    .build());
+
+        adminToken = token("counter-admin"); // Nap san RoleScopeCache
+    }
+
+    @Test
+    void getUsers_twoQueriesPerPage() throws Exception {
+        // GIVEN: duyet het cac trang, moi trang 2 user
+        Set<String> usernames = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+
+        do {
+            var request = MockMvcRequestBuilders.get("/users")
+                    .header("Authorization", "Bearer " + adminToken)
+                    .param("username", "counter-")
+                    .param("size", "2");
+            if (cursor != null) request.param("cursor", cursor);
+
+            // WHEN: 1 query lay trang user, 1 query fetch roles cua trang do, trang sau khong ton hon trang dau
+            statistics.clear();
+            MvcResult mvcResult = perform(request)
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn();
+
+            // THEN
+            Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            var body = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString());
+            body.path("result")
+                    .forEach(user -> usernames.add(user.path("username").asText()));
+            cursor = body.hasNonNull("next") ? body.path("next").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        Assertions.assertThat(usernames).hasSize(USERS + 1);
+        Assertions.assertThat(pages).isEqualTo((USERS + 1 + 1) / 2);
+    }
+
+    @Test
+    void getRoles_singleQuery() throws Exception {
+        // WHEN
+        long statements =
+                countStatements(MockMvcRequestBuilders.get("/roles").header("Authorization", "Bearer " + adminToken));
+
+        // THEN
+        Assertions.assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void token_cachedCredentials() throws Exception {
+        // GIVEN
+        credentialCache.invalidateAll();
+        var request = MockMvcRequestBuilders.post("/auth/token")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{\"username\":\"counter-admin\",\"password\":\"1234567890\"}");
+
+        // WHEN: lan dau 1 query lay user + ten role, lan sau lay tu CredentialCache
+        long cold = countStatements(request);
+        long warm = countStatements(request);
+
+        // THEN
+        Assertions.assertThat(cold).isEqualTo(1);
+        Assertions.assertThat(warm).isZero();
+    }
+
+    @Test
+    void grantRole_setBasedStatements() throws Exception {
+        // GIVEN
+        roleRepository.save(Role.builder().name("COUNT_BULK").build());
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++)
+            userIds.add(userRepository.findByUsername("counter-" + i).get().getId());
+        String content = new ObjectMapper().writeValueAsString(Map.of("userIds", userIds));
+
+        // WHEN: 1 query check role ton tai, 1 cau INSERT ... SELECT va 1 cau tang version cho ca danh sach user
+        long granted = countStatements(MockMvcRequestBuilders.post("/roles/COUNT_BULK/users")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(content));
+        long revoked = countStatements(MockMvcRequestBuilders.delete("/roles/COUNT_BULK/users")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(content));
+
+        // THEN
+        Assertions.assertThat(granted).isEqualTo(3);
+        Assertions.assertThat(revoked).isEqualTo(3);
+    }
+
+    @Test
+    void myInfo_notModified_versionQueryOnly() throws Exception {
+        // GIVEN
+        String eTag = perform(
+                        MockMvcRequestBuilders.get("/users/myInfo").header("Authorization", "Bearer " + adminToken))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        // WHEN: chi 1 query lay version, UserResponse lay tu cache va khong gui body
+        statistics.clear();
+        perform(MockMvcRequestBuilders.get("/users/myInfo")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        // THEN
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void patchUser_profileOnly_noRehash() throws Exception {
+        // GIVEN
+        User user = userRepository.findByUsername("counter-0").get();
+
+        // WHEN: 1 query load user, 1 cau UPDATE chi co first_name + version, 1 query projection cho response
+        long statements = countStatements(MockMvcRequestBuilders.patch("/users/" + user.getId())
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{\"firstName\":\"Counter\"}"));
+
+        // THEN: password giu nguyen, khong bi hash lai
+        Assertions.assertThat(statements).isEqualTo(3);
+        Assertions.assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        User patched = userRepository.findById(user.getId()).get();
+        Assertions.assertThat(patched.getFirstName()).isEqualTo("Counter");
+        Assertions.assertThat(patched.getPassword()).isEqualTo(user.getPassword());
+    }
+
+    @Test
+    void refreshToken_singleConnection() throws Exception {
+        // GIVEN
+        String token = token("counter-1");
+        credentialCache.invalidateAll();
+        long sessions =
+                meterRegistry.get("hibernate.session.connections").summary().count();
+
+        // WHEN: INSERT revoke token cu + query credential trong cung 1 transaction
+        statistics.clear();
+        perform(MockMvcRequestBuilders.post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"token\":\"" + token + "\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        // THEN
+        Assertions.assertThat(statistics.getConnectCount()).isEqualTo(1);
+        Assertions.assertThat(statistics.getTransactionCount()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry
+                        .get("hibernate.session.connections")
+                        .summary()
+                        .count())
+                .isGreaterThan(sessions);
+        Assertions.assertThat(
+                        meterRegistry.get("hibernate.session.flush").timer().count())
+                .isPositive();
+    }
+
+    @Test
+    void readOnlyPaths_noFlush() throws Exception {
+        // WHEN: transaction readOnly dung flush mode MANUAL
+        statistics.clear();
+        perform(MockMvcRequestBuilders.get("/users").header("Authorization", "Bearer " + adminToken))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        perform(MockMvcRequestBuilders.get("/users/myInfo").header("Authorization", "Bearer " + adminToken))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        // THEN
+        Assertions.assertThat(statistics.getFlushCount()).isZero();
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        statistics.clear();
+        perform(request).andExpect(MockMvcResultMatchers.status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    // /auth/token tra ve CompletableFuture, phai dispatch lai de lay ket qua
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions resultActions = mockMvc.perform(request);
+        MvcResult mvcResult = resultActions.andReturn();
+        if (mvcResult.getRequest().isAsyncStarted())
+            return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult));
+        return resultActions;
+    }
+
+    private String token(String username) throws Exception {
+        MvcResult mvcResult = perform(MockMvcRequestBuilders.post("/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"1234567890\"}"))
+                .andReturn();
+        return new ObjectMapper()
+                .readTree(mvcResult.getResponse().getContentAsString())
+                .path("result")
+                .path("token")
+                .asText();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.identity_service.Controller;
 
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
@@ -67,12 +69,18 @@ public class userControllerTest {
         String content = objectMapper.writeValueAsString(request);
 
         Mockito.when(userService.createUser(ArgumentMatchers.any()))
-                .thenReturn(userResponse); // Thay vì gọi userService thì sẽ trả kết quả trực tiếp là usserResponse luôn
+                .thenReturn(CompletableFuture.completedFuture(
+                        userResponse)); // Thay vì gọi userService thì sẽ trả kết quả trực tiếp là usserResponse luôn
 
-        // WHEN, THEN
-        mockMvc.perform(MockMvcRequestBuilders.post("/users")
+        // WHEN
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/users")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .content(content))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()) // Controller tra ve CompletableFuture
+                .andReturn();
+
+        // THEN
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
                 .andExpect(MockMvcResultMatchers.status().isOk()) // KHÚC THEN
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value(1000))
                 .andExpect(MockMvcResultMatchers.jsonPath("result.id").value("15482bcb1f3b"));
@@ -0,0 +1,164 @@
+package com.example.identity_service.Controller;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class userExportTest {
+    private static final int USERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String adminToken;
+
+    @BeforeEach
+    void initData() throws Exception {
+        if (!userRepository.existsByUsername("export-admin")) {
+            Role admin = roleRepository
+                    .findById("ADMIN")
+                    .orElseGet(() ->
+                            roleRepository.save(Role.builder().name("ADMIN").build()));
+            userRepository.save(User.builder()
+                    .username("export-admin")
+                    .password(passwordEncoder.encode("1234567890"))
+                    .roles(Set.of(admin))
+                    .build());
+            for (int i = 0; i < USERS; i++)
+                userRepository.save(User.builder()
+                        .username("export-" + i)
+                        .firstName("Export")
+                        .dob(LocalDate.of(1990, 1, 1 + i))
+                        .roles(Set.of(admin))
+                        .build());
+        }
+        adminToken = token();
+    }
+
+    @Test
+    void export_ndjsonLines() throws Exception {
+        // WHEN
+        MvcResult mvcResult = export(MockMvcRequestBuilders.get("/users/export"));
+
+        // THEN: moi dong la 1 JSON object, ket thuc bang \n, sap xep theo id
+        Assertions.assertThat(mvcResult.getResponse().getContentType()).startsWith(MediaType.APPLICATION_NDJSON_VALUE);
+        String body = mvcResult.getResponse().getContentAsString();
+        Assertions.assertThat(body).endsWith("\n");
+
+        List<JsonNode> lines = parse(body);
+        List<String> ids = lines.stream().map(line -> line.path("id").asText()).toList();
+        Assertions.assertThat(ids).isSorted().doesNotHaveDuplicates();
+
+        JsonNode user = lines.stream()
+                .filter(line -> line.path("username").asText().equals("export-0"))
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertThat(user.path("firstName").asText()).isEqualTo("Export");
+        Assertions.assertThat(user.path("dob").asText()).isEqualTo("1990-01-01");
+        Assertions.assertThat(user.path("roles").isArray()).isTrue();
+        Assertions.assertThat(user.path("roles").get(0).asText()).isEqualTo("ADMIN");
+        Assertions.assertThat(user.has("password")).isFalse();
+        Assertions.assertThat(lines.stream()
+                        .filter(line -> line.path("username").asText().startsWith("export-")))
+                .hasSize(USERS + 1);
+    }
+
+    @Test
+    void export_afterCursor_resumesFromNextUser() throws Exception {
+        // GIVEN: client bi dut ket noi sau dong thu 3
+        List<JsonNode> all = parse(export(MockMvcRequestBuilders.get("/users/export"))
+                .getResponse()
+                .getContentAsString());
+        String cursor = all.get(2).path("id").asText();
+
+        // WHEN
+        MvcResult mvcResult = export(MockMvcRequestBuilders.get("/users/export").param("after", cursor));
+
+        // THEN: tiep tuc dung tu dong thu 4, khong lap lai dong nao
+        List<JsonNode> rest = parse(mvcResult.getResponse().getContentAsString());
+        Assertions.assertThat(rest).isEqualTo(all.subList(3, all.size()));
+    }
+
+    @Test
+    void export_longerAsyncTimeoutThanOtherEndpoints() throws Exception {
+        // WHEN
+        MvcResult exportResult = export(MockMvcRequestBuilders.get("/users/export"));
+        MvcResult tokenResult = mockMvc.perform(tokenRequest())
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // THEN: users.export.timeout chi ap cho /users/export
+        Assertions.assertThat(exportResult.getRequest().getAsyncContext().getTimeout())
+                .isEqualTo(1_800_000);
+        Assertions.assertThat(tokenResult.getRequest().getAsyncContext().getTimeout())
+                .isLessThan(1_800_000);
+    }
+
+    private MvcResult export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(request.header("Authorization", "Bearer " + adminToken))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        return mvcResult;
+    }
+
+    private List<JsonNode> parse(String body) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) lines.add(objectMapper.readTree(line));
+        return lines;
+    }
+
+    private MockHttpServletRequestBuilder tokenRequest() {
+        return MockMvcRequestBuilders.post("/auth/token")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{\"username\":\"export-admin\",\"password\":\"1234567890\"}");
+    }
+
+    private String token() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(tokenRequest()).andReturn();
+        mvcResult =
+                mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult)).andReturn();
+        return objectMapper
+                .readTree(mvcResult.getResponse().getContentAsString())
+                .path("result")
+                .path("token")
+                .asText();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.identity_service.Repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// Query plan (EXPLAIN cua H2) cua cac query nong phai dung index do db/migration tao, khong quet ca bang
+@SpringBootTest
+@ActiveProfiles("test")
+public class queryPlanTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByUsername_usesUniqueIndex() {
+        Assertions.assertThat(plan("select id, password from user where username = 'john'"))
+                .contains("uk_user_username")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void purgeExpiredTokens_usesExpiryIndex() {
+        Assertions.assertThat(plan("select id from invalidated_token where expiry_time < current_timestamp"))
+                .contains("idx_invalidated_token_expiry_time")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void joinTables_indexedBothWays() {
+        // Chieu nguoc lai cua primary key dung index cua foreign key
+        Assertions.assertThat(plan("select roles_name from user_roles where user_id = '1'"))
+                .contains("fk_user_roles_user")
+                .doesNotContain("tableScan");
+        Assertions.assertThat(plan("select user_id from user_roles where roles_name = 'ADMIN'"))
+                .doesNotContain("tableScan");
+        Assertions.assertThat(plan("select permissions_name from role_permissions where role_name = 'ADMIN'"))
+                .contains("fk_role_permissions_role")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void unindexedColumn_tableScan() {
+        // Cot khong co index thi plan la tableScan, test tren moi co y nghia
+        Assertions.assertThat(plan("select id from user where first_name = 'john'"))
+                .contains("tableScan");
+    }
+
+    private String plan(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.identity_service.Repository;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.identity_service.datasource.ReadYourWrites;
+import com.example.identity_service.dto.response.RoleResponse;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.service.RoleService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// 2 database H2 rieng: primary va replica. Moi ben co 1 role chi ben do co, de biet cau SELECT da chay o dau
+@SpringBootTest(
+        properties = {
+            "datasource.replica.enabled=true",
+            "datasource.replica.jdbc-url=" + readReplicaRoutingTest.REPLICA_URL,
+            "datasource.replica.username=sa",
+            "datasource.replica.password=",
+            "datasource.replica.read-your-writes-window=60000"
+        })
+@ActiveProfiles("test")
+public class readReplicaRoutingTest {
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:identity_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Replica that duoc dong bo tu primary, o day tao schema bang cac script migration truoc khi app khoi dong
+    @BeforeAll
+    static void initReplica() throws Exception {
+        SingleConnectionDataSource replica = new SingleConnectionDataSource(REPLICA_URL, "sa", "", true);
+        Flyway.configure().dataSource(replica).load().migrate();
+        new JdbcTemplate(replica).update("insert into role (name) values ('REPLICA_ONLY')");
+        replica.destroy();
+    }
+
+    @BeforeEach
+    void initData() {
+        SecurityContextHolder.clearContext();
+        if (!roleRepository.existsById("PRIMARY_ONLY"))
+            roleRepository.save(Role.builder().name("PRIMARY_ONLY").build());
+    }
+
+    @Test
+    void readOnlyServiceCall_readsReplica() {
+        // WHEN
+        List<String> roles = names(roleService.getAll());
+
+        // THEN: moi pool co metric rieng
+        Assertions.assertThat(roles).contains("REPLICA_ONLY").doesNotContain("PRIMARY_ONLY");
+        Assertions.assertThat(meterRegistry
+                        .get("datasource.routing")
+                        .tag("target", "replica")
+                        .counter()
+                        .count())
+                .isPositive();
+        for (String pool : List.of("primary", "replica"))
+            Assertions.assertThat(meterRegistry
+                            .find("hikaricp.connections.max")
+                            .tag("pool", pool)
+                            .gauge())
+                    .isNotNull();
+    }
+
+    @Test
+    void repositoryReadAndWrite_usePrimary() {
+        // WHEN: findById/existsById cua Spring Data la readOnly nhung khong duoc chuyen sang replica
+        boolean primaryRole = roleRepository.existsById("PRIMARY_ONLY");
+        boolean replicaRole = roleRepository.existsById("REPLICA_ONLY");
+
+        // THEN
+        Assertions.assertThat(primaryRole).isTrue();
+        Assertions.assertThat(replicaRole).isFalse();
+    }
+
+    @Test
+    void pinnedUser_readsPrimary() {
+        // GIVEN: user vua ghi
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("writer", null, List.of()));
+        readYourWrites.pin("writer");
+
+        // WHEN
+        List<String> roles = names(roleService.getAll());
+
+        // THEN
+        Assertions.assertThat(roles).contains("PRIMARY_ONLY").doesNotContain("REPLICA_ONLY");
+    }
+
+    private static List<String> names(List<RoleResponse> roles) {
+        return roles.stream().map(RoleResponse::getName).toList();
+    }
+}
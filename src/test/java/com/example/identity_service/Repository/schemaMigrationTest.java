@@ -0,0 +1,43 @@
+package com.example.identity_service.Repository;
+
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+// Database tao bang ddl-auto truoc khi co migration: Flyway baseline o V1 roi chay cac script con lai
+public class schemaMigrationTest {
+    private static final String URL =
+            "jdbc:h2:mem:identity_baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void migrate_existingSchema_baselinedAtV1() {
+        // GIVEN: schema cu, co san du lieu, chua co flyway_schema_history
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(URL, "sa", "", true);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into user (id, username) values ('1', 'old-user')");
+
+        // WHEN
+        MigrateResult result = Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        // THEN: V1 khong chay lai, row cu co gia tri mac dinh cho cot moi
+        Assertions.assertThat(result.migrations)
+                .extracting(migration -> migration.version)
+                .doesNotContain("1")
+                .contains("2");
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                        "select token_version from user where username = 'old-user'", Integer.class))
+                .isZero();
+        dataSource.destroy();
+    }
+}
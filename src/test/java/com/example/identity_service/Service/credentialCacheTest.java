@@ -0,0 +1,78 @@
+package com.example.identity_service.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.example.identity_service.cache.CredentialCache;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.repository.projection.CredentialView;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class credentialCacheTest {
+    private static final int CALLERS = 8;
+
+    @Test
+    void get_concurrentMisses_singleLoad() throws Exception {
+        // GIVEN: query DB bi chan cho toi khi moi caller da vao get
+        var meterRegistry = new SimpleMeterRegistry();
+        var userRepository = Mockito.mock(UserRepository.class);
+        var release = new CountDownLatch(1);
+        var rows = List.of(row("USER"), row("ADMIN"));
+        Mockito.when(userRepository.findCredentialRows("john")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return rows;
+        });
+        var credentialCache = new CredentialCache(userRepository, 100, 60, meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        // WHEN
+        List<CompletableFuture<CredentialCache.Credential>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++)
+            results.add(CompletableFuture.supplyAsync(() -> credentialCache.get("john"), executor));
+        while (meterRegistry.get("credentials.loads.coalesced").counter().count() < CALLERS - 1) Thread.sleep(10);
+        release.countDown();
+
+        // THEN: 1 query, cac caller con lai dung chung ket qua, lan sau lay tu cache
+        for (var result : results)
+            Assertions.assertThat(result.get(5, TimeUnit.SECONDS).roleNames()).containsExactly("USER", "ADMIN");
+        Assertions.assertThat(credentialCache.get("john").password()).isEqualTo("hash");
+        Mockito.verify(userRepository, Mockito.times(1)).findCredentialRows("john");
+        executor.shutdown();
+    }
+
+    @Test
+    void invalidateUser_reloaded() {
+        // GIVEN
+        var userRepository = Mockito.mock(UserRepository.class);
+        var rows = List.of(row("USER"));
+        Mockito.when(userRepository.findCredentialRows("john")).thenReturn(rows);
+        var credentialCache = new CredentialCache(userRepository, 100, 60, new SimpleMeterRegistry());
+        credentialCache.get("john");
+
+        // WHEN
+        credentialCache.invalidateUser("1");
+        credentialCache.get("john");
+
+        // THEN
+        Mockito.verify(userRepository, Mockito.times(2)).findCredentialRows("john");
+    }
+
+    private static CredentialView row(String role) {
+        var view = Mockito.mock(CredentialView.class);
+        Mockito.when(view.getId()).thenReturn("1");
+        Mockito.when(view.getUsername()).thenReturn("john");
+        Mockito.when(view.getPassword()).thenReturn("hash");
+        Mockito.when(view.getRole()).thenReturn(role);
+        return view;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.identity_service.Service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.identity_service.revocation.JournalRevocationStore;
+import com.example.identity_service.revocation.RevocationIndex;
+
+public class journalRevocationStoreTest {
+    @TempDir
+    Path directory;
+
+    private JournalRevocationStore store;
+    private RevocationIndex index;
+
+    @AfterEach
+    void closeStore() throws Exception {
+        if (store != null) store.close();
+    }
+
+    @Test
+    void reopen_replaysActiveRecords() throws Exception {
+        // GIVEN
+        store = open(1024);
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+        store.save(live, Date.from(Instant.now().plusSeconds(3600)));
+        store.save(expired, Date.from(Instant.now().minusSeconds(10)));
+
+        // WHEN
+        store.close();
+        store = open(1024);
+
+        // THEN: chi token con han duoc nap lai
+        Assertions.assertThat(active()).containsOnlyKeys(live);
+    }
+
+    @Test
+    void open_loadsIndexBeforeServing() throws Exception {
+        // GIVEN: token revoke o lan chay truoc, trai tren 2 segment
+        store = open(2);
+        List<String> live = List.of(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString());
+        live.forEach(jti -> store.save(jti, Date.from(Instant.now().plusSeconds(3600))));
+        String expired = UUID.randomUUID().toString();
+        store.save(expired, Date.from(Instant.now().minusSeconds(10)));
+        store.close();
+
+        // WHEN: chi mo store, chua co ApplicationReadyEvent/loadIndex
+        store = open(2);
+
+        // THEN
+        Assertions.assertThat(store.loadsIndexOnOpen()).isTrue();
+        live.forEach(jti ->
+                Assertions.assertThat(index.contains(UUID.fromString(jti))).isTrue());
+        Assertions.assertThat(index.contains(UUID.fromString(expired))).isFalse();
+    }
+
+    @Test
+    void reopen_tornRecord_truncatedAndOverwritten() throws Exception {
+        // GIVEN: record thu 3 bi ghi do dang (sai checksum)
+        store = open(1024);
+        List<String> jtis = List.of(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString());
+        jtis.forEach(jti -> store.save(jti, Date.from(Instant.now().plusSeconds(3600))));
+        store.close();
+        store = null;
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), 2 * 32 + 24);
+        }
+
+        // WHEN
+        store = open(1024);
+        Map<String, Date> replayed = active();
+        String next = UUID.randomUUID().toString();
+        store.save(next, Date.from(Instant.now().plusSeconds(3600)));
+        store.close();
+        store = open(1024);
+
+        // THEN: replay dung o record hong, record moi ghi de len vi tri do
+        Assertions.assertThat(replayed).containsOnlyKeys(jtis.get(0), jtis.get(1));
+        Assertions.assertThat(active()).containsOnlyKeys(jtis.get(0), jtis.get(1), next);
+    }
+
+    @Test
+    void save_fullSegment_rollsOver() throws Exception {
+        // GIVEN: moi segment 4 record
+        store = open(4);
+
+        // WHEN
+        for (int i = 0; i < 10; i++)
+            store.save(UUID.randomUUID().toString(), Date.from(Instant.now().plusSeconds(3600)));
+        store.close();
+        store = open(4);
+
+        // THEN
+        Assertions.assertThat(segments()).hasSize(3);
+        Assertions.assertThat(active()).hasSize(10);
+    }
+
+    @Test
+    void open_expiredSegments_deleted() throws Exception {
+        // GIVEN: 2 segment day token da het han, segment cuoi con token con han
+        store = open(2);
+        for (int i = 0; i < 4; i++)
+            store.save(UUID.randomUUID().toString(), Date.from(Instant.now().minusSeconds(10)));
+        String live = UUID.randomUUID().toString();
+        store.save(live, Date.from(Instant.now().plusSeconds(3600)));
+        store.close();
+
+        // WHEN
+        store = open(2);
+
+        // THEN: chi con segment dang ghi
+        Assertions.assertThat(segments()).hasSize(1);
+        Assertions.assertThat(active()).containsOnlyKeys(live);
+    }
+
+    @Test
+    void create_withSyncEnabled_rejected() {
+        // WHEN / THEN: journal khong dong bo duoc giua cac node
+        assertThrows(
+                IllegalStateException.class,
+                () -> new JournalRevocationStore(new RevocationIndex(16, 1), directory.toString(), 1024, 20, true));
+    }
+
+    private JournalRevocationStore open(int recordsPerSegment) throws Exception {
+        index = new RevocationIndex(16, 1);
+        var journal = new JournalRevocationStore(index, directory.toString(), recordsPerSegment, 20, false);
+        journal.open();
+        return journal;
+    }
+
+    private Map<String, Date> active() {
+        Map<String, Date> active = new HashMap<>();
+        store.forEachActive(active::put);
+        return active;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.identity_service.Service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.identity_service.configuration.CalibratedPasswordEncoder;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.service.PasswordHashingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class passwordHashingServiceTest {
+    @Test
+    void encode_queueFull_rejected() {
+        // GIVEN: 1 thread, hang doi chua duoc 1 task
+        var meterRegistry = new SimpleMeterRegistry();
+        var passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(12), 1, 1, 1, meterRegistry);
+        var running = passwordHashingService.encode("1234567890");
+        var queued = passwordHashingService.encode("1234567890");
+
+        // WHEN
+        var exception = assertThrows(AppException.class, () -> passwordHashingService.encode("1234567890"));
+
+        // THEN
+        Assertions.assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.SERVER_BUSY);
+        Assertions.assertThat(
+                        meterRegistry.get("password.hashing.rejected").counter().count())
+                .isEqualTo(1);
+        Assertions.assertThat(running.join()).startsWith("$2a$12$");
+        Assertions.assertThat(queued.join()).startsWith("$2a$12$");
+    }
+
+    @Test
+    void calibrate_withinBounds() {
+        // WHEN: target qua nho thi dung min-strength, target qua lon thi dung max-strength
+        var low = CalibratedPasswordEncoder.calibrate(1, 8, 10);
+        var high = CalibratedPasswordEncoder.calibrate(600_000, 4, 6);
+
+        // THEN
+        Assertions.assertThat(low.getStrength()).isEqualTo(8);
+        Assertions.assertThat(high.getStrength()).isEqualTo(6);
+        Assertions.assertThat(high.encode("1234567890")).startsWith("$2a$06$");
+    }
+
+    @Test
+    void upgradeEncoding_calibrated_onlyLowerCost() {
+        // GIVEN: cost tu do, node khac co the do ra cost cao hon
+        var encoder = CalibratedPasswordEncoder.calibrate(600_000, 4, 6);
+
+        // THEN: khong ha cost cua hash do node khac tao, tranh hash qua lai giua cac node
+        Assertions.assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("x")))
+                .isTrue();
+        Assertions.assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("x")))
+                .isFalse();
+        Assertions.assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(7).encode("x")))
+                .isFalse();
+    }
+
+    @Test
+    void upgradeEncoding_configured_anyOtherCost() {
+        // GIVEN: cost cau hinh chung cho deployment
+        var encoder = new CalibratedPasswordEncoder(5);
+
+        // THEN
+        Assertions.assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("x")))
+                .isTrue();
+        Assertions.assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("x")))
+                .isTrue();
+        Assertions.assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("x")))
+                .isFalse();
+        Assertions.assertThat(encoder.upgradeEncoding("plain")).isFalse();
+        Assertions.assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+}
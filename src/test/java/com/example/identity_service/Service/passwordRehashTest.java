@@ -0,0 +1,56 @@
+package com.example.identity_service.Service;
+
+import java.time.Duration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.identity_service.dto.request.AuthenticatonRequest;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.service.AuthenticationService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class passwordRehashTest {
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void authenticate_oldCost_rehashedWithCurrentCost() throws Exception {
+        // GIVEN: password hash voi cost cu (4), cost hien tai la password.encoder.strength (10)
+        String oldHash = new BCryptPasswordEncoder(4).encode("1234567890");
+        User user = userRepository.save(
+                User.builder().username("rehash-user").password(oldHash).build());
+
+        // WHEN
+        authenticationService
+                .authenticate(AuthenticatonRequest.builder()
+                        .username("rehash-user")
+                        .password("1234567890")
+                        .build())
+                .join();
+
+        // THEN: hash lai chay nen sau khi login tra ve
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String password = oldHash;
+        while (password.equals(oldHash) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            password = userRepository.findById(user.getId()).get().getPassword();
+        }
+        Assertions.assertThat(password).startsWith("$2a$10$");
+        Assertions.assertThat(passwordEncoder.matches("1234567890", password)).isTrue();
+        Assertions.assertThat(passwordEncoder.upgradeEncoding(password)).isFalse();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.identity_service.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.example.identity_service.revocation.RevocationIndex;
+
+public class revocationIndexTest {
+    @Test
+    void contains_afterResize() {
+        // GIVEN: 1 segment 32 slot, phai resize nhieu lan
+        var index = new RevocationIndex(16, 1);
+        Instant expiryTime = Instant.now().plusSeconds(3600);
+        List<UUID> jtis = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) jtis.add(UUID.randomUUID());
+
+        // WHEN
+        jtis.forEach(jti -> index.add(jti, expiryTime));
+
+        // THEN
+        Assertions.assertThat(index.capacity()).isGreaterThanOrEqualTo(10_000 * 4 / 3);
+        Assertions.assertThat(index.occupied()).isEqualTo(10_000);
+        Assertions.assertThat(jtis).allMatch(index::contains);
+        for (int i = 0; i < 10_000; i++)
+            Assertions.assertThat(index.contains(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void add_expiredEntries_droppedOnRehash() {
+        // GIVEN
+        var index = new RevocationIndex(16, 1);
+        List<UUID> expired = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) expired.add(UUID.randomUUID());
+
+        // WHEN: slot het han duoc dung lai hoac bi bo khi rehash, bang khong lon len
+        expired.forEach(jti -> index.add(jti, Instant.now().minusSeconds(10)));
+        UUID live = UUID.randomUUID();
+        index.add(live, Instant.now().plusSeconds(3600));
+
+        // THEN
+        Assertions.assertThat(index.capacity()).isLessThanOrEqualTo(32);
+        Assertions.assertThat(expired).noneMatch(index::contains);
+        Assertions.assertThat(index.contains(live)).isTrue();
+    }
+
+    @Test
+    void add_sameJti_keepsLatestExpiry() {
+        // GIVEN
+        var index = new RevocationIndex(16, 1);
+        UUID jti = UUID.randomUUID();
+        index.add(jti, Instant.now().plusSeconds(3600));
+
+        // WHEN: them lai voi expiry cu hon khong lam jti het han som
+        index.add(jti, Instant.now().minusSeconds(10));
+
+        // THEN
+        Assertions.assertThat(index.contains(jti)).isTrue();
+        Assertions.assertThat(index.occupied()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentAddAndContains_noMissedEntries() throws Exception {
+        // GIVEN: bang nho, 2 stripe de writer va reader tranh chap va resize lien tuc
+        var index = new RevocationIndex(16, 2);
+        Instant expiryTime = Instant.now().plusSeconds(3600);
+        var added = new ConcurrentLinkedQueue<UUID>();
+        var stop = new AtomicBoolean();
+        var misses = new AtomicLong();
+        var checks = new AtomicLong();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 25_000; i++) {
+                    UUID jti = UUID.randomUUID();
+                    index.add(jti, expiryTime);
+                    added.add(jti);
+                }
+            }));
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+            readers.add(new Thread(() -> {
+                while (!stop.get()) {
+                    for (UUID jti : added) {
+                        if (stop.get()) break;
+                        if (!index.contains(jti)) misses.incrementAndGet();
+                        checks.incrementAndGet();
+                    }
+                }
+            }));
+
+        // WHEN
+        readers.forEach(Thread::start);
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) writer.join();
+        stop.set(true);
+        for (Thread reader : readers) reader.join();
+
+        // THEN: jti da add xong thi luon doc thay, ke ca trong luc segment dang resize
+        Assertions.assertThat(misses.get()).isZero();
+        Assertions.assertThat(checks.get()).isPositive();
+        Assertions.assertThat(index.occupied()).isEqualTo(100_000);
+        Assertions.assertThat(added).allMatch(index::contains);
+    }
+}
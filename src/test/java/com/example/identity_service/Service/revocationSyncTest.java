@@ -0,0 +1,127 @@
+package com.example.identity_service.Service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.identity_service.IdentityServiceApplication;
+import com.example.identity_service.dto.request.AuthenticatonRequest;
+import com.example.identity_service.dto.request.LogoutRequest;
+import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+import com.example.identity_service.revocation.RevocationIndex;
+import com.example.identity_service.revocation.RevocationSyncPoller;
+import com.example.identity_service.service.AuthenticationService;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// 2 instance cua app dung chung 1 database H2, logout tren node A thi node B phai biet trong thoi gian ngan
+public class revocationSyncTest {
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @AfterEach
+    void stopNodes() {
+        if (nodeB != null) nodeB.close();
+        if (nodeA != null) nodeA.close();
+    }
+
+    @Test
+    void logoutOnOneNode_rejectedByOtherNode() throws Exception {
+        // GIVEN
+        nodeA = startNode();
+        nodeB = startNode();
+        var authenticationB = nodeB.getBean(AuthenticationService.class);
+        RestTemplate restTemplate = new RestTemplate();
+        String nodeAUrl = "http://localhost:" + nodeA.getEnvironment().getProperty("local.server.port") + "/identity";
+
+        JsonNode tokenResponse = restTemplate.postForObject(
+                nodeAUrl + "/auth/token",
+                AuthenticatonRequest.builder()
+                        .username("admin")
+                        .password("admin")
+                        .build(),
+                JsonNode.class);
+        String token = tokenResponse.path("result").path("token").asText();
+        authenticationB.verifyToken(token, false); // Node B da verify va cache token nay
+
+        // WHEN
+        restTemplate.postForObject(
+                nodeAUrl + "/auth/logout", LogoutRequest.builder().token(token).build(), JsonNode.class);
+
+        // THEN
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        boolean rejected = false;
+        while (!rejected && System.nanoTime() < deadline) {
+            try {
+                authenticationB.verifyToken(token, false);
+                Thread.sleep(20);
+            } catch (AppException e) {
+                rejected = true;
+            }
+        }
+        Assertions.assertThat(rejected).isTrue();
+        assertThrows(AppException.class, () -> authenticationB.verifyToken(token, false));
+
+        // Poller ghi metric ngay sau khi them vao index, co the cham hon lan verify o tren
+        var lag = nodeB.getBean(MeterRegistry.class).get("revocation.sync.lag").timer();
+        while (lag.count() == 0 && System.nanoTime() < deadline) Thread.sleep(20);
+        Assertions.assertThat(lag.count()).isEqualTo(1);
+    }
+
+    @Test
+    void poll_sameRevokedAtAcrossPages_allApplied() {
+        // GIVEN: 5 row cung thoi diem revoke, moi trang 2 row; poll tu dong khong chay trong luc test
+        nodeA = startNode(
+                "revocation_sync_paging", "--revocation.sync.interval=3600000", "--revocation.sync.batch-size=2");
+        var repository = nodeA.getBean(InvalidatedTokenRepository.class);
+        Date revokedAt = new Date();
+        List<UUID> jtis = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UUID jti = UUID.randomUUID();
+            jtis.add(jti);
+            repository.save(InvalidatedToken.builder()
+                    .id(jti.toString())
+                    .expiryTime(Date.from(revokedAt.toInstant().plusSeconds(3600)))
+                    .expiryBucket(InvalidatedToken.bucketOf(revokedAt))
+                    .revokedAt(revokedAt)
+                    .build());
+        }
+
+        // WHEN
+        nodeA.getBean(RevocationSyncPoller.class).poll();
+
+        // THEN: trang sau bat dau tu (revokedAt, id) cua row cuoi, khong bo qua row trung revokedAt
+        var index = nodeA.getBean(RevocationIndex.class);
+        Assertions.assertThat(jtis).allMatch(index::contains);
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        return startNode("revocation_sync", "--revocation.sync.interval=50");
+    }
+
+    private ConfigurableApplicationContext startNode(String database, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                        + "NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--revocation.sync.enabled=true"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(IdentityServiceApplication.class)
+                .profiles("test")
+                .run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.identity_service.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+import com.example.identity_service.revocation.BloomFilter;
+import com.example.identity_service.revocation.RevokedTokenFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class revokedTokenFilterTest {
+    private static final int INSERTIONS = 100_000;
+
+    @Test
+    void bloomFilter_put_mightContain() {
+        // GIVEN
+        var filter = new BloomFilter(1000, 0.01);
+        List<String> jtis = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) jtis.add(UUID.randomUUID().toString());
+
+        // WHEN
+        jtis.forEach(filter::put);
+
+        // THEN: khong bao gio co false negative
+        Assertions.assertThat(jtis).allMatch(filter::mightContain);
+        Assertions.assertThat(filter.fillRatio()).isBetween(0.0, 1.0);
+    }
+
+    @Test
+    void bloomFilter_falsePositiveRate_withinConfigured() {
+        // GIVEN: filter day dung expected-insertions
+        var filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) filter.put(UUID.randomUUID().toString());
+
+        // WHEN
+        int falsePositives = 0;
+        for (int i = 0; i < INSERTIONS; i++)
+            if (filter.mightContain(UUID.randomUUID().toString())) falsePositives++;
+
+        // THEN
+        double rate = (double) falsePositives / INSERTIONS;
+        Assertions.assertThat(rate).isLessThan(0.015);
+        Assertions.assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.015);
+    }
+
+    @Test
+    void put_duringRebuild_keptInNewFilter() {
+        // GIVEN: jti bi revoke trong luc rebuild dang doc DB, DB chua tra ve row do
+        var repository = Mockito.mock(InvalidatedTokenRepository.class);
+        var filter = newFilter(repository);
+        Mockito.when(repository.streamIdsByExpiryTimeAfter(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> Stream.of("old").peek(id -> filter.put("during")));
+
+        // WHEN
+        filter.rebuild();
+
+        // THEN
+        Assertions.assertThat(filter.mightBeRevoked("old")).isTrue();
+        Assertions.assertThat(filter.mightBeRevoked("during")).isTrue();
+    }
+
+    @Test
+    void put_concurrentWithRebuilds_noFalseNegative() throws Exception {
+        // GIVEN: giong JpaRevocationStore, row duoc commit truoc roi moi put vao filter
+        Queue<String> committed = new ConcurrentLinkedQueue<>();
+        var repository = Mockito.mock(InvalidatedTokenRepository.class);
+        Mockito.when(repository.streamIdsByExpiryTimeAfter(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> List.copyOf(committed).stream());
+        var filter = newFilter(repository);
+        filter.rebuild();
+        var stop = new AtomicBoolean();
+        var rebuilder = new Thread(() -> {
+            while (!stop.get()) filter.rebuild();
+        });
+
+        // WHEN: rebuild lien tuc trong luc nhieu thread revoke
+        rebuilder.start();
+        List<Thread> revokers = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+            revokers.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    String jti = UUID.randomUUID().toString();
+                    committed.add(jti);
+                    filter.put(jti);
+                }
+            }));
+        revokers.forEach(Thread::start);
+        for (Thread revoker : revokers) revoker.join();
+        stop.set(true);
+        rebuilder.join();
+
+        // THEN: jti commit sau khi rebuild da doc DB van phai vao filter moi qua put
+        Assertions.assertThat(committed).allMatch(filter::mightBeRevoked);
+    }
+
+    private static RevokedTokenFilter newFilter(InvalidatedTokenRepository repository) {
+        return new RevokedTokenFilter(
+                repository, Mockito.mock(PlatformTransactionManager.class), 1000, 0.01, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.identity_service.Service;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.example.identity_service.cache.RoleScopeCache;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.projection.RolePermissionView;
+
+public class roleScopeCacheTest {
+    @Test
+    void scopeOf_unknownRole_reloadedOnce() {
+        // GIVEN: user con ten 1 role da bi xoa
+        var roleRepository = Mockito.mock(RoleRepository.class);
+        var rows = List.of(row("ADMIN", "CREATE_DATA"), row("ADMIN", "APPROVE_POST"));
+        Mockito.when(roleRepository.findAllRolePermissions()).thenReturn(rows);
+        var roleScopeCache = new RoleScopeCache(roleRepository);
+        roleScopeCache.scopeOf(List.of("ADMIN"));
+
+        // WHEN
+        String scope = null;
+        for (int i = 0; i < 100; i++) scope = roleScopeCache.scopeOf(List.of("ADMIN", "GHOST"));
+
+        // THEN: 1 lan nap dau + 1 lan nap lai, sau do GHOST duoc nho la khong ton tai
+        Assertions.assertThat(scope).isEqualTo("ROLE_ADMIN CREATE_DATA APPROVE_POST");
+        Mockito.verify(roleRepository, Mockito.times(2)).findAllRolePermissions();
+    }
+
+    @Test
+    void scopeOf_roleCreatedElsewhere_reloaded() {
+        // GIVEN
+        var roleRepository = Mockito.mock(RoleRepository.class);
+        var admin = row("ADMIN", null);
+        var user = row("USER", "READ_DATA");
+        Mockito.when(roleRepository.findAllRolePermissions())
+                .thenReturn(List.of(admin))
+                .thenReturn(List.of(admin, user));
+        var roleScopeCache = new RoleScopeCache(roleRepository);
+        roleScopeCache.scopeOf(List.of("ADMIN"));
+
+        // WHEN: role USER duoc tao tu node khac sau lan nap dau
+        String scope = roleScopeCache.scopeOf(List.of("ADMIN", "USER"));
+
+        // THEN
+        Assertions.assertThat(scope).isEqualTo("ROLE_ADMIN ROLE_USER READ_DATA");
+        Assertions.assertThat(roleScopeCache.scopeOf(List.of("USER"))).isEqualTo("ROLE_USER READ_DATA");
+        Mockito.verify(roleRepository, Mockito.times(2)).findAllRolePermissions();
+    }
+
+    @Test
+    void refresh_forgetsMissingRoles() {
+        // GIVEN: GHOST da duoc nho la khong ton tai
+        var roleRepository = Mockito.mock(RoleRepository.class);
+        var admin = row("ADMIN", null);
+        var ghost = row("GHOST", null);
+        Mockito.when(roleRepository.findAllRolePermissions())
+                .thenReturn(List.of(admin))
+                .thenReturn(List.of(admin, ghost));
+        var roleScopeCache = new RoleScopeCache(roleRepository);
+        Assertions.assertThat(roleScopeCache.scopeOf(List.of("GHOST"))).isEmpty();
+
+        // WHEN: role GHOST duoc tao lai tu node khac
+        roleScopeCache.refresh();
+
+        // THEN
+        Assertions.assertThat(roleScopeCache.scopeOf(List.of("GHOST"))).isEqualTo("ROLE_GHOST");
+    }
+
+    private static RolePermissionView row(String role, String permission) {
+        var view = Mockito.mock(RolePermissionView.class);
+        Mockito.when(view.getRole()).thenReturn(role);
+        Mockito.when(view.getPermission()).thenReturn(permission);
+        return view;
+    }
+}
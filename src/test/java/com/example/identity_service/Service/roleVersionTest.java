@@ -0,0 +1,94 @@
+package com.example.identity_service.Service;
+
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.identity_service.dto.request.PermissionRequest;
+import com.example.identity_service.dto.request.RoleRequest;
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.PermissionRepository;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.service.PermissionService;
+import com.example.identity_service.service.RoleService;
+
+// Sua role/permission lam doi roles trong UserResponse: version cua user bi anh huong phai tang (cache + ETag)
+@SpringBootTest
+@ActiveProfiles("test")
+public class roleVersionTest {
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    @BeforeEach
+    void initData() {
+        if (userRepository.existsByUsername("version-member")) return;
+        Permission permission = permissionRepository.save(
+                Permission.builder().name("VERSION_PERMISSION").build());
+        Role role = roleRepository.save(Role.builder()
+                .name("VERSION_ROLE")
+                .permissions(Set.of(permission))
+                .build());
+        userRepository.save(
+                User.builder().username("version-member").roles(Set.of(role)).build());
+        userRepository.save(User.builder().username("version-other").build());
+    }
+
+    @Test
+    void redefineRole_incrementsMemberVersion() {
+        // GIVEN
+        long member = version("version-member");
+        long other = version("version-other");
+
+        // WHEN
+        roleService.create(RoleRequest.builder()
+                .name("VERSION_ROLE")
+                .description("redefined")
+                .permissions(Set.of("VERSION_PERMISSION"))
+                .build());
+
+        // THEN
+        Assertions.assertThat(version("version-member")).isGreaterThan(member);
+        Assertions.assertThat(version("version-other")).isEqualTo(other);
+    }
+
+    @Test
+    void redefinePermission_incrementsMemberVersion() {
+        // GIVEN
+        long member = version("version-member");
+        long other = version("version-other");
+
+        // WHEN
+        permissionService.create(PermissionRequest.builder()
+                .name("VERSION_PERMISSION")
+                .description("redefined")
+                .build());
+
+        // THEN
+        Assertions.assertThat(version("version-member")).isGreaterThan(member);
+        Assertions.assertThat(version("version-other")).isEqualTo(other);
+    }
+
+    private long version(String username) {
+        return userRepository.findByUsername(username).orElseThrow().getVersion();
+    }
+}
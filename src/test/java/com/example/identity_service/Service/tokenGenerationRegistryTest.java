@@ -0,0 +1,115 @@
+package com.example.identity_service.Service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.identity_service.dto.request.AuthenticatonRequest;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.revocation.TokenGenerationRegistry;
+import com.example.identity_service.service.AuthenticationService;
+import com.example.identity_service.service.TokenRevocationService;
+import com.example.identity_service.service.UserService;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+// Bat sync de TokenGenerationRegistry.refresh doc lai tokenVersion tu DB
+@SpringBootTest(properties = "revocation.sync.enabled=true")
+@ActiveProfiles("test")
+public class tokenGenerationRegistryTest {
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenGenerationRegistry tokenGenerationRegistry;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void revokeAllTokens_rolledBack_notRaised() throws Exception {
+        // GIVEN
+        User user = save("rollback-user");
+
+        // WHEN: transaction bi rollback sau khi tang tokenVersion
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            tokenRevocationService.revokeAllTokens(user);
+            status.setRollbackOnly();
+        });
+
+        // THEN: token cu van hop le
+        Assertions.assertThat(tokenRevocationService.isSuperseded(claims("rollback-user", 0)))
+                .isFalse();
+        Assertions.assertThat(userRepository.findTokenVersionById(user.getId())).contains(0);
+    }
+
+    @Test
+    void deleteUser_recreatedWithSameUsername_tokensAccepted() throws Exception {
+        // GIVEN: user da revoke all roi bi xoa
+        User user = save("recreated-user");
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> tokenRevocationService.revokeAllTokens(user));
+        Assertions.assertThat(tokenRevocationService.isSuperseded(claims("recreated-user", 0)))
+                .isTrue();
+
+        // WHEN
+        userService.deleteUser(user.getId());
+        save("recreated-user");
+        String token = authenticationService
+                .authenticate(AuthenticatonRequest.builder()
+                        .username("recreated-user")
+                        .password("1234567890")
+                        .build())
+                .join()
+                .getToken();
+
+        // THEN: user moi bat dau tu tokenVersion 0
+        Assertions.assertThat(tokenRevocationService.isSuperseded(claims("recreated-user", 0)))
+                .isFalse();
+        Assertions.assertThat(authenticationService.verifyToken(token, false)).isNotNull();
+    }
+
+    @Test
+    void refresh_deletedOnOtherNode_removed() throws Exception {
+        // GIVEN: node nay con entry cua user da bi xoa o node khac
+        tokenGenerationRegistry.raise("deleted-elsewhere", 3);
+
+        // WHEN
+        tokenGenerationRegistry.refresh();
+
+        // THEN
+        Assertions.assertThat(tokenRevocationService.isSuperseded(claims("deleted-elsewhere", 0)))
+                .isFalse();
+    }
+
+    private User save(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .password(passwordEncoder.encode("1234567890"))
+                .build());
+    }
+
+    private static JWTClaimsSet claims(String username, int version) {
+        return new JWTClaimsSet.Builder()
+                .subject(username)
+                .claim(TokenGenerationRegistry.VERSION_CLAIM, version)
+                .build();
+    }
+}
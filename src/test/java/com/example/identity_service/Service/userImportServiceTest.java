@@ -0,0 +1,183 @@
+package com.example.identity_service.Service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.identity_service.dto.response.UserImportError;
+import com.example.identity_service.dto.response.UserImportResponse;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.service.UserImportService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class userImportServiceTest {
+    @Autowired
+    private UserImportService userImportService;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @BeforeEach
+    void initData() {
+        if (!roleRepository.existsById("USER"))
+            roleRepository.save(Role.builder().name("USER").build());
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(
+                        "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void parseCsvLine_quotedValues() {
+        // THEN: dau phay trong "...", "" la 1 dau ", o trong giu nguyen vi tri
+        Assertions.assertThat(UserImportService.parseCsvLine("a,\"b,c\",\"say \"\"hi\"\"\",,e"))
+                .containsExactly("a", "b,c", "say \"hi\"", "", "e");
+        Assertions.assertThat(UserImportService.parseCsvLine("")).containsExactly("");
+        Assertions.assertThat(UserImportService.parseCsvLine("x,")).containsExactly("x", "");
+    }
+
+    @Test
+    void importCsv_rowErrors() throws Exception {
+        // GIVEN
+        String csv =
+                """
+				username,password,firstName,lastName,dob
+				import-csv-1,12345678,"Nguyen, Van",A,1990-01-01
+				import-csv-2,,B,B,1990-01-01
+				,12345678,C,C,1990-01-01
+				import-csv-3,123,D,D,1990-01-01
+				import-csv-4,12345678,E,E,not-a-date
+				import-csv-1,12345678,F,F,1990-01-01
+				""";
+
+        // WHEN
+        UserImportResponse response = userImportService.importCsv(body(csv));
+
+        // THEN
+        Assertions.assertThat(response.getTotal()).isEqualTo(6);
+        Assertions.assertThat(response.getImported()).isEqualTo(1);
+        Assertions.assertThat(response.getFailed()).isEqualTo(5);
+        Assertions.assertThat(codes(response))
+                .containsExactly(
+                        ErrorCode.PASSWORD_INVALID.getCode(),
+                        ErrorCode.USERNAME_INVALID.getCode(),
+                        ErrorCode.PASSWORD_INVALID.getCode(),
+                        ErrorCode.INVALID_KEY.getCode(),
+                        ErrorCode.USER_EXISTED.getCode());
+        Assertions.assertThat(response.getErrors())
+                .extracting(UserImportError::getRow)
+                .containsExactly(2L, 3L, 4L, 5L, 6L);
+        Assertions.assertThat(userRepository
+                        .findByUsername("import-csv-1")
+                        .orElseThrow()
+                        .getFirstName())
+                .isEqualTo("Nguyen, Van");
+    }
+
+    @Test
+    void importJson_badElement_rowError() throws Exception {
+        // GIVEN: dob sai format, phan tu khong phai object, thieu password
+        String json =
+                """
+				[
+				{"username": "import-json-1", "password": "12345678"},
+				{"username": "import-json-2", "password": "12345678", "dob": "yesterday"},
+				42,
+				{"username": "import-json-3"},
+				{"username": "import-json-4", "password": "12345678"}
+				]
+				""";
+
+        // WHEN
+        UserImportResponse response = userImportService.importJson(body(json));
+
+        // THEN: cac dong hop le van duoc import
+        Assertions.assertThat(response.getTotal()).isEqualTo(5);
+        Assertions.assertThat(response.getImported()).isEqualTo(2);
+        Assertions.assertThat(codes(response))
+                .containsExactly(
+                        ErrorCode.INVALID_KEY.getCode(),
+                        ErrorCode.INVALID_KEY.getCode(),
+                        ErrorCode.PASSWORD_INVALID.getCode());
+        Assertions.assertThat(response.getErrors())
+                .extracting(UserImportError::getUsername)
+                .containsExactly("import-json-2", null, "import-json-3");
+        Assertions.assertThat(userRepository.existsByUsername("import-json-4")).isTrue();
+    }
+
+    @Test
+    void importJson_truncated_importsRowsRead() throws Exception {
+        // GIVEN: JSON bi cat ngang
+        String json = "[{\"username\": \"import-cut-1\", \"password\": \"12345678\"}, {\"username\": \"imp";
+
+        // WHEN
+        UserImportResponse response = userImportService.importJson(body(json));
+
+        // THEN
+        Assertions.assertThat(response.getImported()).isEqualTo(1);
+        Assertions.assertThat(codes(response)).containsExactly(ErrorCode.INVALID_KEY.getCode());
+        Assertions.assertThat(userRepository.existsByUsername("import-cut-1")).isTrue();
+    }
+
+    @Test
+    void importCsv_usernameCreatedConcurrently_onlyThatRowFails() throws Exception {
+        // GIVEN: user duoc tao sau khi lo da check trung username
+        userRepository.save(User.builder().username("import-race-2").build());
+        doReturn(Set.of()).when(userRepository).findExistingUsernames(any());
+        String csv =
+                """
+				username,password
+				import-race-1,12345678
+				import-race-2,12345678
+				import-race-3,12345678
+				""";
+
+        // WHEN
+        UserImportResponse response = userImportService.importCsv(body(csv));
+
+        // THEN: lo rollback, insert lai tung dong
+        Assertions.assertThat(response.getImported()).isEqualTo(2);
+        Assertions.assertThat(response.getErrors())
+                .extracting(UserImportError::getUsername)
+                .containsExactly("import-race-2");
+        Assertions.assertThat(codes(response)).containsExactly(ErrorCode.USER_EXISTED.getCode());
+        Assertions.assertThat(userRepository.existsByUsername("import-race-1")).isTrue();
+        Assertions.assertThat(userRepository.existsByUsername("import-race-3")).isTrue();
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Integer> codes(UserImportResponse response) {
+        return response.getErrors().stream().map(UserImportError::getCode).toList();
+    }
+}
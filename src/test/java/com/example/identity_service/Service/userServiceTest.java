@@ -2,10 +2,10 @@ package com.example.identity_service.Service;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.util.concurrent.CompletionException;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,11 +13,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import com.example.identity_service.dto.request.UserCreationRequest;
 import com.example.identity_service.dto.response.UserResponse;
+import com.example.identity_service.entity.Role;
 import com.example.identity_service.entity.User;
 import com.example.identity_service.exception.AppException;
+import com.example.identity_service.repository.RoleRepository;
 import com.example.identity_service.repository.UserRepository;
 import com.example.identity_service.service.UserService;
 
@@ -29,6 +32,9 @@ public class userServiceTest {
     @MockBean
     private UserRepository userRepository;
 
+    @Autowired
+    private RoleRepository roleRepository;
+
     private UserCreationRequest request;
     private UserResponse userResponse;
     private User user;
@@ -38,6 +44,7 @@ public class userServiceTest {
     // Sẽ được chạy trước khi chạy testcase
     void initData() {
         dob = LocalDate.of(1990, 1, 1);
+        roleRepository.save(Role.builder().name("USER").build()); // Role mac dinh cua user moi
 
         request = UserCreationRequest.builder()
                 .username("john")
@@ -67,10 +74,9 @@ public class userServiceTest {
     @Test
     void createUser_validRequest_success() {
         // GIVEN
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
         when(userRepository.save(any())).thenReturn(user);
         // WHEN
-        var response = userService.createUser(request);
+        var response = userService.createUser(request).join();
         // THEN
         Assertions.assertThat(response.getId()).isEqualTo("15482bcb1f3b");
         Assertions.assertThat(response.getUsername()).isEqualTo("john");
@@ -78,11 +84,15 @@ public class userServiceTest {
 
     @Test
     void createUser_userExsisted_false() {
-        // GIVEN
-        when(userRepository.existsByUsername(anyString())).thenReturn(true);
+        // GIVEN: username trung bi unique constraint chan khi INSERT
+        when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_user_username"));
         // WHEN
-        var exception = assertThrows(AppException.class, () -> userService.createUser(request));
+        var exception = assertThrows(
+                CompletionException.class, () -> userService.createUser(request).join());
         // THEN
-        Assertions.assertThat(exception.getErrorCode().getCode()).isEqualTo(1001);
+        Assertions.assertThat(exception.getCause()).isInstanceOf(AppException.class);
+        Assertions.assertThat(
+                        ((AppException) exception.getCause()).getErrorCode().getCode())
+                .isEqualTo(1001);
     }
 }
@@ -0,0 +1,135 @@
+package com.example.identity_service.Service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.identity_service.cache.VerifiedTokenCache;
+import com.example.identity_service.dto.request.AuthenticatonRequest;
+import com.example.identity_service.dto.request.LogoutRequest;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.service.AuthenticationService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class verifiedTokenCacheTest {
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Test
+    void get_syncDisabled_expiredAfterMaxTtl() throws Exception {
+        // GIVEN: khong co sync, token con han 1 gio nhung cache chi giu 50ms
+        var cache = new VerifiedTokenCache(100, 50, false, new SimpleMeterRegistry());
+        cache.put("token", jwt("jti", Instant.now().plusSeconds(3600)));
+        Assertions.assertThat(cache.get("token")).isNotNull();
+
+        // WHEN
+        Thread.sleep(100);
+
+        // THEN
+        Assertions.assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void get_syncEnabled_keptUntilTokenExpiry() throws Exception {
+        // GIVEN: co sync thi max-ttl khong ap dung
+        var cache = new VerifiedTokenCache(100, 50, true, new SimpleMeterRegistry());
+        cache.put("long-lived", jwt("jti-1", Instant.now().plusSeconds(3600)));
+        cache.put("short-lived", jwt("jti-2", Instant.now().plusMillis(200)));
+
+        // WHEN
+        Thread.sleep(300);
+
+        // THEN
+        Assertions.assertThat(cache.get("long-lived")).isNotNull();
+        Assertions.assertThat(cache.get("short-lived")).isNull();
+    }
+
+    @Test
+    void put_expiredToken_notCached() {
+        // GIVEN
+        var cache = new VerifiedTokenCache(100, 60_000, true, new SimpleMeterRegistry());
+
+        // WHEN
+        cache.put("token", jwt("jti", Instant.now().minusSeconds(1)));
+
+        // THEN
+        Assertions.assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void invalidateJti_onlyMatchingToken() {
+        // GIVEN
+        var cache = new VerifiedTokenCache(100, 60_000, true, new SimpleMeterRegistry());
+        cache.put("token-1", jwt("jti-1", Instant.now().plusSeconds(3600)));
+        cache.put("token-2", jwt("jti-2", Instant.now().plusSeconds(3600)));
+
+        // WHEN
+        cache.invalidateJti("jti-1");
+
+        // THEN
+        Assertions.assertThat(cache.get("token-1")).isNull();
+        Assertions.assertThat(cache.get("token-2")).isNotNull();
+    }
+
+    @Test
+    void invalidateJti_afterInvalidateAndPutAgain() {
+        // GIVEN: token bi xoa roi duoc verify lai, jti -> key phai tro lai entry moi
+        var cache = new VerifiedTokenCache(100, 60_000, true, new SimpleMeterRegistry());
+        cache.put("token", jwt("jti", Instant.now().plusSeconds(3600)));
+        cache.invalidate("token");
+        cache.put("token", jwt("jti", Instant.now().plusSeconds(3600)));
+
+        // WHEN
+        cache.invalidateJti("jti");
+
+        // THEN
+        Assertions.assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void logout_removedFromCache() throws Exception {
+        // GIVEN
+        String token = authenticationService
+                .authenticate(AuthenticatonRequest.builder()
+                        .username("admin")
+                        .password("admin")
+                        .build())
+                .join()
+                .getToken();
+        authenticationService.verifyToken(token, false);
+        Assertions.assertThat(verifiedTokenCache.get(token)).isNotNull();
+
+        // WHEN
+        authenticationService.logout(LogoutRequest.builder().token(token).build());
+
+        // THEN
+        Assertions.assertThat(verifiedTokenCache.get(token)).isNull();
+        assertThrows(AppException.class, () -> authenticationService.verifyToken(token, false));
+    }
+
+    private static SignedJWT jwt(String jti, Instant expiryTime) {
+        return new SignedJWT(
+                new JWSHeader(JWSAlgorithm.HS512),
+                new JWTClaimsSet.Builder()
+                        .jwtID(jti)
+                        .expirationTime(Date.from(expiryTime))
+                        .build());
+    }
+}